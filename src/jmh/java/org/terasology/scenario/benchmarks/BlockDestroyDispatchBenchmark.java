@@ -0,0 +1,134 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.scenario.benchmarks;
+
+import org.joml.Vector3i;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.engine.entitySystem.entity.EntityManager;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.logic.characters.CharacterComponent;
+import org.terasology.engine.logic.health.DoDestroyEvent;
+import org.terasology.engine.logic.location.LocationComponent;
+import org.terasology.engine.network.ClientComponent;
+import org.terasology.engine.world.block.Block;
+import org.terasology.engine.world.block.BlockComponent;
+import org.terasology.scenario.components.ScenarioComponent;
+import org.terasology.scenario.components.TriggerConditionListComponent;
+import org.terasology.scenario.components.TriggerEventListComponent;
+import org.terasology.scenario.internal.systems.ComponentEvaluation.EvaluationPlanSystem;
+import org.terasology.scenario.internal.systems.ComponentEvaluation.EvaluationSystem;
+import org.terasology.scenario.internal.systems.EventListeningSystem;
+import org.terasology.scenario.internal.systems.InventorySummarySystem;
+import org.terasology.scenario.internal.systems.ScenarioMetricsSystem;
+import org.terasology.scenario.internal.systems.ScenarioRootManagementSystem;
+import org.terasology.scenario.internal.systems.ScenarioRootRegistry;
+import org.terasology.scenario.internal.systems.TriggerIndexSystem;
+import org.terasology.scenario.internal.utilities.ArgumentParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of dispatching the blocks destroyed during one tick to the block destroyed triggers of a scenario, from the {@link DoDestroyEvent}
+ * of the engine through the {@link EventListeningSystem} and the {@link ScenarioRootManagementSystem} to the conditions of the triggers.
+ * Every trigger has a single integer comparison condition that passes, and no actions
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BlockDestroyDispatchBenchmark {
+    @Param({"1", "10", "100"})
+    public int triggers;
+
+    @Param({"1", "64"})
+    public int blocksPerTick;
+
+    @Param({"false", "true"})
+    public boolean batch;
+
+    private ScenarioRootManagementSystem rootManagement;
+    private final List<EntityRef> blocks = new ArrayList<>();
+    private EntityRef player;
+    private EntityRef nonPlayer;
+
+    @Setup
+    public void setup() throws Exception {
+        ScenarioBenchmarkEnvironment environment = new ScenarioBenchmarkEnvironment();
+        environment.register(new ScenarioMetricsSystem());
+        environment.register(new ScenarioRootRegistry());
+        environment.register(new TriggerIndexSystem());
+        environment.register(new InventorySummarySystem());
+        environment.register(new EvaluationSystem());
+        environment.register(new EvaluationPlanSystem());
+        environment.register(new ArgumentParser());
+        environment.register(new EventListeningSystem());
+        rootManagement = environment.register(new ScenarioRootManagementSystem());
+        environment.initialise();
+        rootManagement.scenarioBatchBlockDestroy(batch);
+
+        EntityManager entityManager = environment.getEntityManager();
+        ScenarioComponent scenarioComponent = new ScenarioComponent();
+        for (int i = 0; i < triggers; i++) {
+            EntityRef trigger = environment.createLogicEntity("scenario:trigger");
+            EntityRef event = environment.createLogicEntity("scenario:onBlockDestroyEvent");
+            event.setOwner(trigger);
+            EntityRef condition = environment.createLogicEntity("scenario:intComparisonConditional");
+            condition.setOwner(trigger);
+            TriggerEventListComponent events = trigger.getComponent(TriggerEventListComponent.class);
+            events.events.add(event);
+            trigger.saveComponent(events);
+            TriggerConditionListComponent conditions = trigger.getComponent(TriggerConditionListComponent.class);
+            conditions.conditions.add(condition);
+            trigger.saveComponent(conditions);
+            scenarioComponent.triggerEntities.add(trigger);
+        }
+        entityManager.create(scenarioComponent);
+
+        player = entityManager.create(new CharacterComponent(), new LocationComponent());
+        player.setOwner(entityManager.create(new ClientComponent()));
+        nonPlayer = entityManager.create(new CharacterComponent(), new LocationComponent());
+
+        Block block = new Block();
+        for (int i = 0; i < blocksPerTick; i++) {
+            blocks.add(entityManager.create(new BlockComponent(block, new Vector3i(i, 0, 0))));
+        }
+    }
+
+    /**
+     * A player destroying the blocks of a tick, each one is forwarded to the scenario
+     */
+    @Benchmark
+    public void playerDestroys() {
+        destroyBlocks(player);
+    }
+
+    /**
+     * Blocks destroyed by something other than a player, for example an explosion, which are filtered before reaching the scenario
+     */
+    @Benchmark
+    public void nonPlayerDestroys() {
+        destroyBlocks(nonPlayer);
+    }
+
+    private void destroyBlocks(EntityRef instigator) {
+        for (EntityRef block : blocks) {
+            //The block entities aren't removed, as the engine's block systems aren't part of the environment
+            block.send(new DoDestroyEvent(instigator, EntityRef.NULL, null));
+        }
+        rootManagement.update(0); //Dispatches the batch of the tick, if batching
+    }
+}
@@ -0,0 +1,107 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.scenario.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.scenario.components.ScenarioHubToolUpdateComponent;
+import org.terasology.scenario.internal.events.ConvertIntoEntityEvent;
+import org.terasology.scenario.internal.events.ConvertScenarioEntityEvent;
+import org.terasology.scenario.internal.systems.ConvertEntitySystem;
+import org.terasology.scenario.internal.systems.ConvertIntoEntitySystem;
+import org.terasology.scenario.internal.systems.LogicPrefabTableSystem;
+import org.terasology.scenario.internal.systems.RegionLookupSystem;
+import org.terasology.scenario.internal.systems.ScenarioMetricsSystem;
+import org.terasology.scenario.internal.utilities.ArgumentParser;
+import org.terasology.scenario.internal.utilities.LogicEntityCodec;
+import org.terasology.scenario.internal.utilities.LogicEntityTrees;
+import org.terasology.scenario.internal.utilities.LogicPrefabTable;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of converting a logic entity tree into its construction strings with the {@link ConvertEntitySystem} and back into entities with
+ * the {@link ConvertIntoEntitySystem}, as done for every edit of a logic entity. The tree is a random int expression nested to the given
+ * depth, each level with a constant integer as second argument
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ConvertRoundTripBenchmark {
+    @Param({"1", "4", "16"})
+    public int depth;
+
+    private ConvertEntitySystem convertEntitySystem;
+    private LogicPrefabTable table;
+    private EntityRef hubTool;
+    private EntityRef expression;
+    private List<String> constructionStrings;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws Exception {
+        ScenarioBenchmarkEnvironment environment = new ScenarioBenchmarkEnvironment();
+        environment.register(new ScenarioMetricsSystem());
+        environment.register(new RegionLookupSystem());
+        environment.register(new ArgumentParser());
+        LogicPrefabTableSystem logicPrefabTable = environment.register(new LogicPrefabTableSystem());
+        convertEntitySystem = environment.register(new ConvertEntitySystem());
+        environment.register(new ConvertIntoEntitySystem());
+        environment.initialise();
+        table = logicPrefabTable.getTable();
+
+        hubTool = environment.getEntityManager().create(new ScenarioHubToolUpdateComponent());
+        expression = environment.createRandomIntChain(depth);
+        constructionStrings = toConstructionStrings();
+        encoded = LogicEntityCodec.encode(constructionStrings, table);
+    }
+
+    @Benchmark
+    public List<String> toConstructionStrings() {
+        ConvertScenarioEntityEvent event = new ConvertScenarioEntityEvent();
+        expression.send(event);
+        return event.getOutputList();
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return LogicEntityCodec.encode(constructionStrings, table);
+    }
+
+    @Benchmark
+    public void fromConstructionStrings() {
+        LogicEntityTrees.destroyTree(convert(new ConvertIntoEntityEvent(constructionStrings)));
+    }
+
+    @Benchmark
+    public void fromEncoded() {
+        LogicEntityTrees.destroyTree(convert(new ConvertIntoEntityEvent(encoded)));
+    }
+
+    /**
+     * The whole edit of a logic entity, from the tree being edited to the copy that replaces it
+     */
+    @Benchmark
+    public void roundTrip() {
+        LogicEntityTrees.destroyTree(convert(new ConvertIntoEntityEvent(convertEntitySystem.encode(expression))));
+    }
+
+    private EntityRef convert(ConvertIntoEntityEvent event) {
+        hubTool.send(event);
+        return event.getReturnEntity();
+    }
+}
@@ -0,0 +1,68 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.scenario.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.scenario.internal.events.evaluationEvents.EvaluateIntEvent;
+import org.terasology.scenario.internal.systems.ComponentEvaluation.EvaluationPlanSystem;
+import org.terasology.scenario.internal.systems.ComponentEvaluation.EvaluationSystem;
+import org.terasology.scenario.internal.systems.InventorySummarySystem;
+import org.terasology.scenario.internal.systems.ScenarioMetricsSystem;
+import org.terasology.scenario.internal.utilities.ArgumentParser;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of evaluating an integer expression nested to a given depth, each level a random int expression whose first argument is the next
+ * level. Compares the evaluation events of the {@link EvaluationSystem}, one event per level, with the compiled plans of the
+ * {@link EvaluationPlanSystem}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class EvaluationDepthBenchmark {
+    @Param({"1", "4", "16", "64"})
+    public int depth;
+
+    private EvaluationPlanSystem evaluationPlans;
+    private EntityRef expression;
+
+    @Setup
+    public void setup() throws Exception {
+        ScenarioBenchmarkEnvironment environment = new ScenarioBenchmarkEnvironment();
+        environment.register(new ScenarioMetricsSystem());
+        environment.register(new InventorySummarySystem());
+        environment.register(new EvaluationSystem());
+        evaluationPlans = environment.register(new EvaluationPlanSystem());
+        environment.register(new ArgumentParser());
+        environment.initialise();
+
+        expression = environment.createRandomIntChain(depth);
+    }
+
+    @Benchmark
+    public int evaluationEvents() {
+        EvaluateIntEvent event = new EvaluateIntEvent(EntityRef.NULL);
+        expression.send(event);
+        return event.getResult();
+    }
+
+    @Benchmark
+    public int evaluationPlan() {
+        return evaluationPlans.evaluateInt(expression, EntityRef.NULL);
+    }
+}
@@ -0,0 +1,147 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.scenario.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.engine.entitySystem.entity.EntityManager;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.prefab.Prefab;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.logic.characters.CharacterComponent;
+import org.terasology.engine.logic.inventory.ItemComponent;
+import org.terasology.engine.logic.inventory.events.GiveItemEvent;
+import org.terasology.engine.logic.location.LocationComponent;
+import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
+import org.terasology.scenario.components.ScenarioArgumentContainerComponent;
+import org.terasology.scenario.components.events.triggerInformation.InfoTriggeringEntityComponent;
+import org.terasology.scenario.components.information.ScenarioValueIntegerComponent;
+import org.terasology.scenario.components.information.ScenarioValueItemPrefabUriComponent;
+import org.terasology.scenario.internal.events.EventTriggerEvent;
+import org.terasology.scenario.internal.systems.ActionEventSystem;
+import org.terasology.scenario.internal.systems.ComponentEvaluation.EvaluationPlanSystem;
+import org.terasology.scenario.internal.systems.ComponentEvaluation.EvaluationSystem;
+import org.terasology.scenario.internal.systems.InventorySummarySystem;
+import org.terasology.scenario.internal.systems.ScenarioMetricsSystem;
+import org.terasology.scenario.internal.utilities.ArgumentParser;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Item entities created and time taken to give an amount of a stackable item to a player, with the give item action of the
+ * {@link ActionEventSystem}, which creates full stacks, compared to creating an entity for every item. The items are taken by a stand-in
+ * for the inventory of the player that destroys them
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class GiveItemBenchmark {
+    private static final String ITEM_PREFAB = "benchmark:stackableItem";
+
+    @Param({"1", "64", "1000"})
+    public int amount;
+
+    private final ItemReceiver receiver = new ItemReceiver();
+    private EntityManager entityManager;
+    private Prefab itemPrefab;
+    private EntityRef action;
+    private EntityRef player;
+    private EntityRef information;
+
+    @Setup
+    public void setup() throws Exception {
+        ScenarioBenchmarkEnvironment environment = new ScenarioBenchmarkEnvironment();
+        environment.register(new ScenarioMetricsSystem());
+        environment.register(new InventorySummarySystem());
+        environment.register(new EvaluationSystem());
+        environment.register(new EvaluationPlanSystem());
+        environment.register(new ArgumentParser());
+        environment.register(new ActionEventSystem());
+        environment.register(receiver);
+        environment.initialise();
+        entityManager = environment.getEntityManager();
+
+        ItemComponent item = new ItemComponent();
+        item.stackId = "stackableItem";
+        item.maxStackSize = 99;
+        environment.addPrefab(ITEM_PREFAB, item);
+        itemPrefab = environment.getAssetManager().getAsset(ITEM_PREFAB, Prefab.class).get();
+
+        action = environment.createLogicEntity("scenario:givePlayerItemAction");
+        Map<String, EntityRef> arguments = action.getComponent(ScenarioArgumentContainerComponent.class).arguments;
+        ScenarioValueIntegerComponent amountValue = arguments.get("amount").getComponent(ScenarioValueIntegerComponent.class);
+        amountValue.value = amount;
+        arguments.get("amount").saveComponent(amountValue);
+        ScenarioValueItemPrefabUriComponent itemValue = arguments.get("item").getComponent(ScenarioValueItemPrefabUriComponent.class);
+        itemValue.prefabURI = ITEM_PREFAB;
+        arguments.get("item").saveComponent(itemValue);
+
+        player = entityManager.create(new CharacterComponent(), new LocationComponent());
+        InfoTriggeringEntityComponent triggeringEntity = new InfoTriggeringEntityComponent();
+        triggeringEntity.entity = player;
+        information = entityManager.create(triggeringEntity);
+    }
+
+    @Benchmark
+    public void stackedItems(ItemCounters counters) {
+        receiver.counters = counters;
+        action.send(new EventTriggerEvent(information));
+    }
+
+    /**
+     * Giving the items the way the action did before items were stacked
+     */
+    @Benchmark
+    public void itemPerEntity(ItemCounters counters) {
+        receiver.counters = counters;
+        for (int i = 0; i < amount; i++) {
+            entityManager.create(itemPrefab).send(new GiveItemEvent(player));
+        }
+    }
+
+    /**
+     * Item entities taken by the player and the items they held, per operation
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class ItemCounters {
+        public long itemEntities;
+        public long items;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            itemEntities = 0;
+            items = 0;
+        }
+    }
+
+    /**
+     * Stand-in for the inventory of the player, takes every item given to it
+     */
+    public static class ItemReceiver extends BaseComponentSystem {
+        private ItemCounters counters;
+
+        @ReceiveEvent
+        public void onGiveItem(GiveItemEvent event, EntityRef item, ItemComponent itemComponent) {
+            counters.itemEntities++;
+            counters.items += itemComponent.stackCount;
+            event.setHandled(true);
+            item.destroy();
+        }
+    }
+}
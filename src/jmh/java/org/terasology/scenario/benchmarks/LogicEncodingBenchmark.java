@@ -0,0 +1,151 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.scenario.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.terasology.scenario.internal.events.ConvertScenarioEntityEvent;
+import org.terasology.scenario.internal.systems.ConvertEntitySystem;
+import org.terasology.scenario.internal.systems.LogicPrefabTableSystem;
+import org.terasology.scenario.internal.utilities.ArgumentParser;
+import org.terasology.scenario.internal.utilities.LogicEntityCodec;
+import org.terasology.scenario.internal.utilities.LogicPrefabTable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Size and time of sending the construction strings of an edited logic entity, in the binary form of {@link LogicEntityCodec} compared to
+ * the strings themselves. The strings are written with a length and their modified UTF-8 bytes each, the way a list of strings is sent
+ * over the network. The tree is a random int expression nested to the given depth, each level with a constant integer as second argument
+ * <p>
+ * The bytes counter gives the size of a message, the time of the write benchmarks is the cost on the client and the time of the read
+ * benchmarks the cost on the server, up to the lines given to the entity builder
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LogicEncodingBenchmark {
+    @Param({"1", "4", "16"})
+    public int depth;
+
+    private LogicPrefabTable table;
+    private List<String> constructionStrings;
+    private byte[] encoded;
+    private byte[] strings;
+
+    @Setup
+    public void setup() throws Exception {
+        ScenarioBenchmarkEnvironment environment = new ScenarioBenchmarkEnvironment();
+        environment.register(new ArgumentParser());
+        LogicPrefabTableSystem logicPrefabTable = environment.register(new LogicPrefabTableSystem());
+        environment.register(new ConvertEntitySystem());
+        environment.initialise();
+        table = logicPrefabTable.getTable();
+
+        ConvertScenarioEntityEvent event = new ConvertScenarioEntityEvent();
+        environment.createRandomIntChain(depth).send(event);
+        constructionStrings = event.getOutputList();
+        encoded = LogicEntityCodec.encode(constructionStrings, table);
+        strings = writeStrings(constructionStrings);
+    }
+
+    @Benchmark
+    public byte[] writeEncoded(SizeCounters counters) {
+        byte[] message = LogicEntityCodec.encode(constructionStrings, table);
+        counters.bytes += message.length;
+        return message;
+    }
+
+    @Benchmark
+    public byte[] writeStrings(SizeCounters counters) throws IOException {
+        byte[] message = writeStrings(constructionStrings);
+        counters.bytes += message.length;
+        return message;
+    }
+
+    @Benchmark
+    public void readEncoded(Blackhole blackhole) {
+        LogicEntityCodec.decode(encoded, table, new ConsumingVisitor(blackhole));
+    }
+
+    @Benchmark
+    public void readStrings(Blackhole blackhole) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(strings));
+        int count = input.readInt();
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            lines.add(input.readUTF());
+        }
+        LogicEntityCodec.parse(lines, new ConsumingVisitor(blackhole));
+    }
+
+    private static byte[] writeStrings(List<String> lines) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(lines.size());
+        for (String line : lines) {
+            output.writeUTF(line);
+        }
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Bytes of the messages written, per operation
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class SizeCounters {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    /**
+     * Stand-in for the entity builder of the server, consumes every line
+     */
+    private static class ConsumingVisitor implements LogicEntityCodec.Visitor {
+        private final Blackhole blackhole;
+
+        ConsumingVisitor(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void visitPrefab(int depth, String key, String prefab) {
+            blackhole.consume(key);
+            blackhole.consume(prefab);
+        }
+
+        @Override
+        public void visitValue(int depth, String key, String value) {
+            blackhole.consume(key);
+            blackhole.consume(value);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.scenario.benchmarks;
+
+import org.joml.Vector3f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.engine.entitySystem.entity.EntityManager;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.logic.characters.CharacterComponent;
+import org.terasology.engine.logic.location.LocationComponent;
+import org.terasology.engine.world.block.BlockRegion;
+import org.terasology.scenario.components.ScenarioComponent;
+import org.terasology.scenario.components.regions.RegionContainingEntitiesComponent;
+import org.terasology.scenario.components.regions.RegionLocationComponent;
+import org.terasology.scenario.components.regions.RegionNameComponent;
+import org.terasology.scenario.internal.systems.RegionEventSystem;
+import org.terasology.scenario.internal.systems.ScenarioMetricsSystem;
+import org.terasology.scenario.internal.systems.ScenarioRootRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one update of the {@link RegionEventSystem} with N regions and M characters. The regions are 8 blocks wide cubes on a square grid
+ * and the characters either walk one block along the grid every update, entering and leaving regions, or stand still
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RegionUpdateBenchmark {
+    private static final int REGION_SIZE = 8;
+
+    @Param({"10", "100", "1000"})
+    public int regions;
+
+    @Param({"1", "16", "64"})
+    public int characters;
+
+    private RegionEventSystem regionEventSystem;
+    private final List<LocationComponent> locations = new ArrayList<>();
+    private final Vector3f position = new Vector3f();
+    private int gridWidth;
+    private int step;
+
+    @Setup
+    public void setup() throws Exception {
+        ScenarioBenchmarkEnvironment environment = new ScenarioBenchmarkEnvironment();
+        environment.register(new ScenarioMetricsSystem());
+        environment.register(new ScenarioRootRegistry());
+        regionEventSystem = environment.register(new RegionEventSystem());
+        environment.initialise();
+
+        EntityManager entityManager = environment.getEntityManager();
+        gridWidth = (int) Math.ceil(Math.sqrt(regions));
+        ScenarioComponent scenarioComponent = new ScenarioComponent();
+        for (int i = 0; i < regions; i++) {
+            int x = (i % gridWidth) * REGION_SIZE;
+            int z = (i / gridWidth) * REGION_SIZE;
+            RegionLocationComponent location = new RegionLocationComponent();
+            location.region = new BlockRegion(x, 0, z).setSize(REGION_SIZE, REGION_SIZE, REGION_SIZE);
+            RegionNameComponent name = new RegionNameComponent();
+            name.regionName = "region" + i;
+            scenarioComponent.regionEntities.add(entityManager.create(location, name, new RegionContainingEntitiesComponent()));
+        }
+        entityManager.create(scenarioComponent);
+
+        for (int i = 0; i < characters; i++) {
+            LocationComponent location = new LocationComponent();
+            EntityRef character = entityManager.create(new CharacterComponent(), location);
+            locations.add(character.getComponent(LocationComponent.class));
+        }
+        moveCharacters();
+        regionEventSystem.update(0); //Picks up the scenario
+        regionEventSystem.update(0);
+    }
+
+    @Benchmark
+    public void walkingCharacters() {
+        moveCharacters();
+        regionEventSystem.update(0);
+    }
+
+    @Benchmark
+    public void idleCharacters() {
+        regionEventSystem.update(0);
+    }
+
+    /**
+     * Moves every character one block along its row of the grid, each character walks a different row. The components are changed in
+     * place, like the character movement does between updates
+     */
+    private void moveCharacters() {
+        step++;
+        int length = gridWidth * REGION_SIZE;
+        for (int i = 0; i < locations.size(); i++) {
+            position.set((step + i) % length + 0.5f, 1.5f, (i % gridWidth) * REGION_SIZE + 0.5f);
+            locations.get(i).setWorldPosition(position);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.scenario.benchmarks;
+
+import org.reflections.Reflections;
+import org.terasology.engine.context.Context;
+import org.terasology.engine.context.internal.ContextImpl;
+import org.terasology.engine.core.bootstrap.EntitySystemSetupUtil;
+import org.terasology.engine.core.module.ModuleManager;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.entity.internal.EngineEntityManager;
+import org.terasology.engine.entitySystem.metadata.ComponentLibrary;
+import org.terasology.engine.entitySystem.metadata.MetadataUtil;
+import org.terasology.engine.entitySystem.prefab.Prefab;
+import org.terasology.engine.entitySystem.prefab.PrefabData;
+import org.terasology.engine.entitySystem.prefab.internal.PojoPrefab;
+import org.terasology.engine.entitySystem.systems.ComponentSystem;
+import org.terasology.engine.registry.CoreRegistry;
+import org.terasology.engine.registry.InjectionHelper;
+import org.terasology.engine.registry.Share;
+import org.terasology.engine.testUtil.ModuleManagerFactory;
+import org.terasology.gestalt.assets.ResourceUrn;
+import org.terasology.gestalt.assets.management.AssetManager;
+import org.terasology.gestalt.assets.module.ModuleAwareAssetTypeManager;
+import org.terasology.gestalt.assets.module.ModuleAwareAssetTypeManagerImpl;
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.scenario.components.ScenarioArgumentContainerComponent;
+import org.terasology.scenario.components.ScenarioLogicLabelComponent;
+import org.terasology.scenario.components.ScenarioLogicTextComponent;
+import org.terasology.scenario.components.TriggerActionListComponent;
+import org.terasology.scenario.components.TriggerConditionListComponent;
+import org.terasology.scenario.components.TriggerEventListComponent;
+import org.terasology.scenario.components.TriggerNameComponent;
+import org.terasology.scenario.components.actions.ScenarioIndicatorActionComponent;
+import org.terasology.scenario.components.actions.ScenarioSecondaryGiveItemComponent;
+import org.terasology.scenario.components.conditionals.ScenarioIndicatorConditionalComponent;
+import org.terasology.scenario.components.conditionals.ScenarioSecondaryIntCompareComponent;
+import org.terasology.scenario.components.events.ScenarioIndicatorEventComponent;
+import org.terasology.scenario.components.events.ScenarioSecondaryBlockDestroyComponent;
+import org.terasology.scenario.components.information.IndentificationComponents.ScenarioTypeComparatorComponent;
+import org.terasology.scenario.components.information.IndentificationComponents.ScenarioTypeIntegerComponent;
+import org.terasology.scenario.components.information.IndentificationComponents.ScenarioTypeItemComponent;
+import org.terasology.scenario.components.information.IndentificationComponents.ScenarioTypePlayerComponent;
+import org.terasology.scenario.components.information.ScenarioExpressionRandomIntComponent;
+import org.terasology.scenario.components.information.ScenarioValueComparatorComponent;
+import org.terasology.scenario.components.information.ScenarioValueIntegerComponent;
+import org.terasology.scenario.components.information.ScenarioValueItemPrefabUriComponent;
+import org.terasology.scenario.components.information.ScenarioValuePlayerComponent;
+import org.terasology.scenario.internal.utilities.ArgumentParser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-memory stand-in for the engine that the scenario benchmarks run the systems of the module in. The entity manager and event system are
+ * the in-memory ones of the engine, so event dispatch costs the same as in a game, but nothing is rendered, sent over the network or
+ * stored
+ * <p>
+ * The assets of the module aren't loaded, the logic prefabs that the benchmarks use are created with the same components as their
+ * prefab files instead. Systems are registered and injected by hand, only the ones a benchmark needs
+ * <p>
+ * Events sent from another thread than the one that created the environment are queued by the engine instead of being dispatched, so the
+ * benchmarks keep their state per thread
+ */
+public class ScenarioBenchmarkEnvironment {
+    private final Context context = new ContextImpl();
+    private final EngineEntityManager entityManager;
+    private final AssetManager assetManager;
+    private final List<ComponentSystem> systems = new ArrayList<>();
+
+    public ScenarioBenchmarkEnvironment() throws Exception {
+        ModuleManager moduleManager = ModuleManagerFactory.create();
+        context.put(ModuleManager.class, moduleManager);
+        ModuleAwareAssetTypeManager assetTypeManager = new ModuleAwareAssetTypeManagerImpl();
+        assetTypeManager.createAssetType(Prefab.class, PojoPrefab::new, "prefabs");
+        assetTypeManager.switchEnvironment(moduleManager.getEnvironment());
+        assetManager = assetTypeManager.getAssetManager();
+        context.put(ModuleAwareAssetTypeManager.class, assetTypeManager);
+        context.put(AssetManager.class, assetManager);
+        CoreRegistry.setContext(context);
+
+        EntitySystemSetupUtil.addReflectionBasedLibraries(context);
+        EntitySystemSetupUtil.addEntityManagementRelatedClasses(context);
+        entityManager = context.get(EngineEntityManager.class);
+
+        //The module isn't part of the module environment, so its components are registered by hand
+        ComponentLibrary componentLibrary = context.get(ComponentLibrary.class);
+        for (Class<? extends Component> type : new Reflections("org.terasology.scenario.components").getSubTypesOf(Component.class)) {
+            componentLibrary.register(new ResourceUrn("Scenario", MetadataUtil.getComponentClassName(type)), type);
+        }
+        addLogicPrefabs();
+    }
+
+    public EngineEntityManager getEntityManager() {
+        return entityManager;
+    }
+
+    public AssetManager getAssetManager() {
+        return assetManager;
+    }
+
+    /**
+     * Adds a system that is injected and initialised by {@link #initialise()}, its {@link Share} types are made available to the systems
+     * registered with it
+     */
+    public <T extends ComponentSystem> T register(T system) {
+        Share share = system.getClass().getAnnotation(Share.class);
+        if (share != null) {
+            for (Class<?> type : share.value()) {
+                put(type, system);
+            }
+        }
+        systems.add(system);
+        entityManager.getEventSystem().registerEventHandler(system);
+        return system;
+    }
+
+    /**
+     * Injects and starts all registered systems, the same way the engine does when a game starts
+     */
+    public void initialise() {
+        for (ComponentSystem system : systems) {
+            InjectionHelper.inject(system, context);
+        }
+        for (ComponentSystem system : systems) {
+            system.initialise();
+        }
+        for (ComponentSystem system : systems) {
+            system.preBegin();
+            system.postBegin();
+        }
+    }
+
+    /**
+     * Creates a logic entity with its default arguments, like the logic screens do when one is added to the logic tree
+     *
+     * @param prefab one of the logic prefabs of the environment
+     */
+    public EntityRef createLogicEntity(String prefab) {
+        EntityRef entity = entityManager.create(assetManager.getAsset(prefab, Prefab.class).get());
+        if (entity.hasComponent(ScenarioLogicTextComponent.class)) {
+            context.get(ArgumentParser.class).parseDefaults(entity);
+        }
+        return entity;
+    }
+
+    /**
+     * Replaces an argument of a logic entity, destroying the default argument it replaces
+     */
+    public void setArgument(EntityRef entity, String key, EntityRef argument) {
+        ScenarioArgumentContainerComponent args = entity.getComponent(ScenarioArgumentContainerComponent.class);
+        EntityRef replaced = args.arguments.put(key, argument);
+        if (replaced != null) {
+            replaced.destroy();
+        }
+        entity.saveComponent(args);
+    }
+
+    /**
+     * @return a random int expression whose first argument is another random int expression, down to the given depth
+     */
+    public EntityRef createRandomIntChain(int depth) {
+        EntityRef expression = createLogicEntity("scenario:scenarioRandomInt");
+        if (depth > 1) {
+            setArgument(expression, "int1", createRandomIntChain(depth - 1));
+        }
+        return expression;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void put(Class<T> type, Object value) {
+        context.put(type, (T) value);
+    }
+
+    /**
+     * Logic prefabs with the components of the prefab files of the same name
+     */
+    private void addLogicPrefabs() {
+        addPrefab("scenario:scenarioConstantInt", new ScenarioTypeIntegerComponent(), label("Constant Integer"), integer(1));
+        addPrefab("scenario:scenarioConstantComparator", new ScenarioTypeComparatorComponent(), label("Comparator"),
+                new ScenarioValueComparatorComponent());
+        addPrefab("scenario:scenarioRandomInt", new ScenarioTypeIntegerComponent(), label("Random Int"),
+                new ScenarioExpressionRandomIntComponent(), text("Random int [int1:Integer] - [int2:Integer]"),
+                new ScenarioArgumentContainerComponent());
+        addPrefab("scenario:intComparisonConditional", new ScenarioIndicatorConditionalComponent(), label("Integer Comparison"),
+                new ScenarioSecondaryIntCompareComponent(), text("[int1:Integer] [compare:Comparator] [int2:Integer]"),
+                new ScenarioArgumentContainerComponent());
+        addPrefab("scenario:onBlockDestroyEvent", new ScenarioIndicatorEventComponent(), label("On Block Destroyed"),
+                new ScenarioSecondaryBlockDestroyComponent(), text("On block destroyed"));
+        addPrefab("scenario:scenarioConstantPlayer", new ScenarioTypePlayerComponent(), label("Constant Player"),
+                new ScenarioValuePlayerComponent());
+        ScenarioValueItemPrefabUriComponent itemPrefab = new ScenarioValueItemPrefabUriComponent();
+        itemPrefab.prefabURI = "CoreAssets:axe";
+        addPrefab("scenario:scenarioConstantItemPrefab", new ScenarioTypeItemComponent(), label("Constant Item Prefab"), itemPrefab);
+        addPrefab("scenario:givePlayerItemAction", new ScenarioIndicatorActionComponent(), label("Give item"),
+                new ScenarioSecondaryGiveItemComponent(), text("Give [player:Player] [amount:Integer] [item:Item]."),
+                new ScenarioArgumentContainerComponent());
+        TriggerNameComponent triggerName = new TriggerNameComponent();
+        triggerName.name = "Default Trigger";
+        addPrefab("scenario:trigger", new TriggerActionListComponent(), new TriggerConditionListComponent(),
+                new TriggerEventListComponent(), triggerName);
+    }
+
+    /**
+     * Adds a prefab to the asset manager of the environment
+     */
+    public void addPrefab(String urn, Component... components) {
+        PrefabData data = new PrefabData();
+        for (Component component : components) {
+            data.addComponent(component);
+        }
+        assetManager.loadAsset(new ResourceUrn(urn), data, Prefab.class);
+    }
+
+    private static ScenarioLogicLabelComponent label(String name) {
+        ScenarioLogicLabelComponent label = new ScenarioLogicLabelComponent();
+        label.name = name;
+        return label;
+    }
+
+    private static ScenarioLogicTextComponent text(String text) {
+        ScenarioLogicTextComponent logicText = new ScenarioLogicTextComponent();
+        logicText.text = text;
+        return logicText;
+    }
+
+    private static ScenarioValueIntegerComponent integer(int value) {
+        ScenarioValueIntegerComponent integer = new ScenarioValueIntegerComponent();
+        integer.value = value;
+        return integer;
+    }
+}
@@ -0,0 +1,15 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.scenario.components;
+
+import org.terasology.gestalt.entitysystem.component.EmptyComponent;
+
+/**
+ * Marks a logic entity as a temporary copy that only exists while it is being edited in the logic screens, it is never replicated or
+ * serialized and the entities with it are destroyed when the editing is done
+ * <p>
+ * Temporary entities share argument entities with the logic tree that they were copied from, see {@link
+ * org.terasology.scenario.internal.utilities.LogicEntityTrees}
+ */
+public class ScenarioTemporaryLogicComponent extends EmptyComponent<ScenarioTemporaryLogicComponent> {
+}
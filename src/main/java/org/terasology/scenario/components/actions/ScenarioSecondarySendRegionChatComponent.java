@@ -0,0 +1,17 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.scenario.components.actions;
+
+import org.terasology.engine.network.Replicate;
+import org.terasology.gestalt.entitysystem.component.EmptyComponent;
+import org.terasology.scenario.components.ScenarioComponent;
+
+/**
+ * Secondary Indicator component for a Scenario logic entity, indicates that the entity is a chat message action that is only sent to the
+ * players inside of a region.
+ * <p>
+ * Scenario logic entities detailed in {@link ScenarioComponent}
+ */
+@Replicate
+public class ScenarioSecondarySendRegionChatComponent extends EmptyComponent<ScenarioSecondarySendRegionChatComponent> {
+}
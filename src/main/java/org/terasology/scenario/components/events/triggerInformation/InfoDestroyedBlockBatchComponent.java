@@ -0,0 +1,31 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.scenario.components.events.triggerInformation;
+
+import com.google.common.collect.Maps;
+import org.terasology.gestalt.entitysystem.component.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Component that is attached to the data entity that is passed when blocks destroyed by a player within one tick are handled as a single
+ * block destroyed event, contains the aggregated values of all the destroyed blocks
+ */
+public class InfoDestroyedBlockBatchComponent implements Component<InfoDestroyedBlockBatchComponent> {
+    /**
+     * number of blocks that were destroyed
+     */
+    public int count;
+
+    /**
+     * number of destroyed blocks by the uri of their block family
+     */
+    public Map<String, Integer> countsByFamily = new HashMap<>();
+
+    @Override
+    public void copyFrom(InfoDestroyedBlockBatchComponent other) {
+        this.count = other.count;
+        this.countsByFamily = Maps.newHashMap(other.countsByFamily);
+    }
+}
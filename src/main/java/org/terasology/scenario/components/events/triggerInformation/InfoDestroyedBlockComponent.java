@@ -4,6 +4,7 @@ package org.terasology.scenario.components.events.triggerInformation;
 
 import org.terasology.engine.entitySystem.entity.EntityRef;
 import org.terasology.engine.entitySystem.prefab.Prefab;
+import org.terasology.engine.world.block.family.BlockFamily;
 import org.terasology.gestalt.entitysystem.component.Component;
 
 /**
@@ -25,10 +26,17 @@ public class InfoDestroyedBlockComponent implements Component<InfoDestroyedBlock
      */
     public Prefab damageType;
 
+    /**
+     * family of the block that was destroyed, captured when the event occurs as the block entity may not exist anymore when the event is
+     * handled
+     */
+    public BlockFamily blockFamily;
+
     @Override
     public void copyFrom(InfoDestroyedBlockComponent other) {
         this.destroyedBlock = other.destroyedBlock;
         this.directCause = other.directCause;
         this.damageType = other.damageType;
+        this.blockFamily = other.blockFamily;
     }
 }
@@ -11,9 +11,13 @@ import java.util.List;
 /**
  * Event that for converting a list of serialised strings(generated by ConvertEntitySystem) back into an entity Using {@link
  * ConvertIntoEntitySystem}
+ * <p>
+ * The strings can also be given in the binary form of {@link org.terasology.scenario.internal.utilities.LogicEntityCodec}, they are then
+ * decoded by the system
  */
 public class ConvertIntoEntityEvent implements Event {
     private List<String> constructionStrings;
+    private byte[] encodedConstruction;
     private EntityRef returnEntity;
 
     public ConvertIntoEntityEvent() {
@@ -23,6 +27,14 @@ public class ConvertIntoEntityEvent implements Event {
         this.constructionStrings = constructionStrings;
     }
 
+    public ConvertIntoEntityEvent(byte[] encodedConstruction) {
+        this.encodedConstruction = encodedConstruction;
+    }
+
+    public byte[] getEncodedConstruction() {
+        return encodedConstruction;
+    }
+
     public List<String> getConstructionStrings() {
         return constructionStrings;
     }
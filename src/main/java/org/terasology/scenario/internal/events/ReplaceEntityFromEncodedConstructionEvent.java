@@ -0,0 +1,38 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.scenario.internal.events;
+
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.network.ServerEvent;
+import org.terasology.gestalt.entitysystem.event.Event;
+import org.terasology.scenario.internal.systems.ConvertEntitySystem;
+import org.terasology.scenario.internal.utilities.LogicEntityCodec;
+
+/**
+ * Same as {@link ReplaceEntityFromConstructionStringsEvent}, with the construction strings in the compact binary form of
+ * {@link LogicEntityCodec} as created by {@link ConvertEntitySystem#encode(EntityRef)}
+ */
+@ServerEvent
+public class ReplaceEntityFromEncodedConstructionEvent implements Event {
+    private EntityRef replaceEntity;
+    private byte[] encodedConstruction;
+
+    public ReplaceEntityFromEncodedConstructionEvent() {
+    }
+
+    public ReplaceEntityFromEncodedConstructionEvent(EntityRef replaceEntity, byte[] encodedConstruction) {
+        this.replaceEntity = replaceEntity;
+        this.encodedConstruction = encodedConstruction;
+    }
+
+    public EntityRef getReplaced() {
+        return replaceEntity;
+    }
+
+    /**
+     * @return the construction strings encoded with {@link LogicEntityCodec}
+     */
+    public byte[] getEncodedConstruction() {
+        return encodedConstruction;
+    }
+}
@@ -0,0 +1,13 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.scenario.internal.events;
+
+import org.terasology.gestalt.entitysystem.event.Event;
+import org.terasology.scenario.internal.systems.ScenarioArchiveSystem;
+
+/**
+ * Event sent to the scenario entity after {@link ScenarioArchiveSystem} replaced all of its triggers and regions with the ones of an
+ * imported scenario, systems that keep indexes of the logic or region tree need to rebuild them
+ */
+public class ScenarioImportedEvent implements Event {
+}
@@ -4,12 +4,14 @@ package org.terasology.scenario.internal.systems;
 
 import org.joml.Vector3f;
 import org.slf4j.LoggerFactory;
+import org.terasology.engine.entitySystem.entity.EntityBuilder;
 import org.terasology.engine.entitySystem.entity.EntityManager;
 import org.terasology.engine.entitySystem.entity.EntityRef;
 import org.terasology.engine.entitySystem.prefab.Prefab;
 import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
 import org.terasology.engine.entitySystem.systems.RegisterMode;
 import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.entitySystem.systems.UpdateSubscriberSystem;
 import org.terasology.engine.logic.characters.CharacterTeleportEvent;
 import org.terasology.engine.logic.chat.ChatMessageEvent;
 import org.terasology.engine.logic.common.DisplayNameComponent;
@@ -37,19 +39,22 @@ import org.terasology.scenario.components.actions.ScenarioSecondaryGiveItemCompo
 import org.terasology.scenario.components.actions.ScenarioSecondaryHealAmountComponent;
 import org.terasology.scenario.components.actions.ScenarioSecondaryLogInfoComponent;
 import org.terasology.scenario.components.actions.ScenarioSecondarySendChatComponent;
+import org.terasology.scenario.components.actions.ScenarioSecondarySendPlayerChatComponent;
+import org.terasology.scenario.components.actions.ScenarioSecondarySendRegionChatComponent;
 import org.terasology.scenario.components.actions.ScenarioSecondaryTakeBlockComponent;
 import org.terasology.scenario.components.actions.ScenarioSecondaryTakeItemComponent;
 import org.terasology.scenario.components.actions.ScenarioSecondaryTeleportComponent;
 import org.terasology.scenario.components.events.triggerInformation.InfoTriggeringEntityComponent;
 import org.terasology.scenario.components.information.ScenarioValuePlayerComponent;
+import org.terasology.scenario.components.regions.RegionContainingEntitiesComponent;
 import org.terasology.scenario.components.regions.RegionLocationComponent;
 import org.terasology.scenario.internal.events.EventTriggerEvent;
-import org.terasology.scenario.internal.events.evaluationEvents.EvaluateBlockEvent;
-import org.terasology.scenario.internal.events.evaluationEvents.EvaluateIntEvent;
-import org.terasology.scenario.internal.events.evaluationEvents.EvaluateItemPrefabEvent;
-import org.terasology.scenario.internal.events.evaluationEvents.EvaluateRegionEvent;
-import org.terasology.scenario.internal.events.evaluationEvents.EvaluateStringEvent;
+import org.terasology.scenario.internal.systems.ComponentEvaluation.EvaluationPlanSystem;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -59,9 +64,37 @@ import java.util.Map;
  * triggered event
  * <p>
  * This is the actual action result of triggering that action entity
+ * <p>
+ * Arguments of the actions are evaluated with their compiled plan from the {@link EvaluationPlanSystem}, take actions check the {@link
+ * InventorySummarySystem} before looking through the inventory
+ * <p>
+ * Given items are created as full stacks where the item can stack, the number of item entities created compared to the number of items
+ * that were actually taken by the player can be seen in the {@link ScenarioMetricsSystem}
+ * <p>
+ * Chat messages are sent from a cached sender entity per name and color instead of a new entity for every message. They are sent to all
+ * clients, the triggering player or the players inside of a region, and are queued until the end of the tick, where the sender of each
+ * message is looked up once for all of its clients. Every message is still sent as a chat message of its own
  */
 @RegisterSystem(RegisterMode.AUTHORITY)
-public class ActionEventSystem extends BaseComponentSystem {
+public class ActionEventSystem extends BaseComponentSystem implements UpdateSubscriberSystem {
+    public static final String ITEMS_GIVEN_METRIC = "actions.itemsGiven";
+    public static final String ITEM_ENTITIES_METRIC = "actions.itemEntitiesCreated";
+    public static final String ITEMS_TAKEN_METRIC = "actions.itemsTaken";
+    public static final String CHAT_SENDERS_METRIC = "chat.cachedSenders";
+    public static final String CHAT_MESSAGES_METRIC = "chat.messagesQueued";
+    public static final String CHAT_DELIVERIES_METRIC = "chat.messagesDelivered";
+
+    /**
+     * Number of chat sender entities kept for reuse, the least recently used one is destroyed when another one is needed
+     */
+    private static final int MAX_CHAT_SENDERS = 32;
+
+    /**
+     * Seconds that an evicted chat sender is kept alive, so that chat messages from it that are still on their way to the clients can be
+     * shown with its name and color
+     */
+    private static final float RETIRED_CHAT_SENDER_SECONDS = 10;
+
     private static final org.slf4j.Logger logger = LoggerFactory.getLogger(ActionEventSystem.class);
 
     @In
@@ -78,6 +111,42 @@ public class ActionEventSystem extends BaseComponentSystem {
     @In
     private InventoryManager inventoryManager;
 
+    @In
+    private EvaluationPlanSystem evaluationPlans;
+
+    @In
+    private InventorySummarySystem inventories;
+
+    @In
+    private ScenarioMetricsSystem metrics;
+
+    private final Map<String, EntityRef> chatSenders = new LinkedHashMap<String, EntityRef>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, EntityRef> eldest) {
+            if (size() > MAX_CHAT_SENDERS) {
+                retiredChatSenders.put(eldest.getValue(), chatTime + RETIRED_CHAT_SENDER_SECONDS);
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * Senders evicted from the cache with the time at which they are destroyed, in the order they were evicted. Chat messages that were
+     * sent from them can still be delivered to clients after the eviction
+     */
+    private final Map<EntityRef, Float> retiredChatSenders = new LinkedHashMap<>();
+
+    /**
+     * Seconds of updates since the system started, for the destruction of the retired chat senders
+     */
+    private float chatTime;
+
+    /**
+     * Chat messages waiting to be sent at the end of the tick, in the order they were queued
+     */
+    private final List<PendingChat> pendingChats = new ArrayList<>();
+
     @Override
     public void initialise() {
         super.initialise();
@@ -88,13 +157,9 @@ public class ActionEventSystem extends BaseComponentSystem {
     public void onEventTriggerEvent(EventTriggerEvent event, EntityRef entity, ScenarioSecondaryGiveBlockComponent action) {
         Map<String, EntityRef> variables = entity.getComponent(ScenarioArgumentContainerComponent.class).arguments;
 
-        EvaluateBlockEvent blockEvaluateEvent = new EvaluateBlockEvent(event.informationEntity);
-        variables.get("block").send(blockEvaluateEvent);
-        BlockFamily block = blockEvaluateEvent.getResult();
+        BlockFamily block = evaluationPlans.evaluateBlock(variables.get("block"), event.informationEntity);
 
-        EvaluateIntEvent intEvaluateEvent = new EvaluateIntEvent(event.informationEntity);
-        variables.get("amount").send(intEvaluateEvent);
-        int amount = intEvaluateEvent.getResult();
+        int amount = evaluationPlans.evaluateInt(variables.get("amount"), event.informationEntity);
 
         EntityRef item = blockItemFactory.newInstance(block, amount);
 
@@ -110,35 +175,62 @@ public class ActionEventSystem extends BaseComponentSystem {
     public void onEventTriggerEvent(EventTriggerEvent event, EntityRef entity, ScenarioSecondaryGiveItemComponent action) {
         Map<String, EntityRef> variables = entity.getComponent(ScenarioArgumentContainerComponent.class).arguments;
 
-        EvaluateItemPrefabEvent itemEvaluateEvent = new EvaluateItemPrefabEvent(event.informationEntity);
-        variables.get("item").send(itemEvaluateEvent);
-        Prefab itemPrefab = itemEvaluateEvent.getResult();
+        Prefab itemPrefab = evaluationPlans.evaluateItemPrefab(variables.get("item"), event.informationEntity);
 
-        EvaluateIntEvent intEvaluateEvent = new EvaluateIntEvent(event.informationEntity);
-        variables.get("amount").send(intEvaluateEvent);
-        int amount = intEvaluateEvent.getResult();
+        int amount = evaluationPlans.evaluateInt(variables.get("amount"), event.informationEntity);
 
         ScenarioValuePlayerComponent.PlayerType player = variables.get("player").getComponent(ScenarioValuePlayerComponent.class).type;
 
-        for (int i = 0; i < amount; i++) {
-            EntityRef item = entityManager.create(itemPrefab);
-
-
-            if (player == ScenarioValuePlayerComponent.PlayerType.TRIGGERING_PLAYER) {
-                EntityRef giveEntity = event.informationEntity.getComponent(InfoTriggeringEntityComponent.class).entity;
+        if (player == ScenarioValuePlayerComponent.PlayerType.TRIGGERING_PLAYER) {
+            EntityRef giveEntity = event.informationEntity.getComponent(InfoTriggeringEntityComponent.class).entity;
+            int given = 0;
+            while (given < amount) {
+                EntityRef item = createItemStack(itemPrefab, amount - given);
+                if (!item.exists()) {
+                    logger.warn("Can't give {} from {} as it isn't an item", itemPrefab, entity);
+                    break;
+                }
+                int stackCount = item.getComponent(ItemComponent.class).stackCount;
                 GiveItemEvent giveItemEvent = new GiveItemEvent(giveEntity);
                 item.send(giveItemEvent);
+                if (!giveItemEvent.isHandled()) {
+                    item.destroy(); //Not taken, so the rest of the items wouldn't be either
+                    break;
+                }
+                given += stackCount;
             }
+            metrics.add(ITEMS_GIVEN_METRIC, given);
+        }
+    }
+
+    /**
+     * Creates a single item entity of the prefab holding as much of the amount as its stack allows, items that don't stack hold one
+     *
+     * @return the created item, {@link EntityRef#NULL} if the prefab isn't an item
+     */
+    private EntityRef createItemStack(Prefab itemPrefab, int amount) {
+        if (itemPrefab == null) {
+            return EntityRef.NULL;
+        }
+        EntityRef item = entityManager.create(itemPrefab);
+        ItemComponent itemComponent = item.getComponent(ItemComponent.class);
+        if (itemComponent == null) {
+            item.destroy();
+            return EntityRef.NULL;
+        }
+        metrics.increment(ITEM_ENTITIES_METRIC);
+        if (!itemComponent.stackId.isEmpty() && itemComponent.maxStackSize > 1) {
+            itemComponent.stackCount = (byte) Math.min(amount, itemComponent.maxStackSize);
+            item.saveComponent(itemComponent);
         }
+        return item;
     }
 
     @ReceiveEvent //Logger message
     public void onEventTriggerEvent(EventTriggerEvent event, EntityRef entity, ScenarioSecondaryLogInfoComponent action) {
         Map<String, EntityRef> variables = entity.getComponent(ScenarioArgumentContainerComponent.class).arguments;
 
-        EvaluateStringEvent stringEvaluateEvent = new EvaluateStringEvent(event.informationEntity);
-        variables.get("text").send(stringEvaluateEvent);
-        String out = stringEvaluateEvent.getResult();
+        String out = evaluationPlans.evaluateString(variables.get("text"), event.informationEntity);
 
         logger.info(out);
     }
@@ -147,32 +239,120 @@ public class ActionEventSystem extends BaseComponentSystem {
     public void onEventTriggerEvent(EventTriggerEvent event, EntityRef entity, ScenarioSecondarySendChatComponent action) {
         Map<String, EntityRef> variables = entity.getComponent(ScenarioArgumentContainerComponent.class).arguments;
 
-        EvaluateStringEvent stringEvaluateEvent = new EvaluateStringEvent(event.informationEntity);
-        variables.get("message").send(stringEvaluateEvent);
-        String message = stringEvaluateEvent.getResult();
+        String message = evaluationPlans.evaluateString(variables.get("message"), event.informationEntity);
+
+        String from = evaluationPlans.evaluateString(variables.get("owner"), event.informationEntity);
+
+        queueChat(entityManager.getEntitiesWith(ClientComponent.class), message, from, Color.CYAN);
+    }
+
+    @ReceiveEvent //Chat message to a player
+    public void onEventTriggerEvent(EventTriggerEvent event, EntityRef entity, ScenarioSecondarySendPlayerChatComponent action) {
+        Map<String, EntityRef> variables = entity.getComponent(ScenarioArgumentContainerComponent.class).arguments;
 
-        EvaluateStringEvent stringEvaluateEvent2 = new EvaluateStringEvent(event.informationEntity);
-        variables.get("owner").send(stringEvaluateEvent2);
-        String from = stringEvaluateEvent2.getResult();
+        String message = evaluationPlans.evaluateString(variables.get("message"), event.informationEntity);
 
-        EntityRef chatMessageEntity = entityManager.create(assetManager.getAsset("scenario:scenarioChatEntity", Prefab.class).get());
-        chatMessageEntity.getComponent(DisplayNameComponent.class).name = from;
-        chatMessageEntity.saveComponent(chatMessageEntity.getComponent(DisplayNameComponent.class));
-        chatMessageEntity.getComponent(ColorComponent.class).color = Color.CYAN;
-        chatMessageEntity.saveComponent(chatMessageEntity.getComponent(ColorComponent.class));
+        String from = evaluationPlans.evaluateString(variables.get("owner"), event.informationEntity);
 
-        for (EntityRef client : entityManager.getEntitiesWith(ClientComponent.class)) {
-            client.send(new ChatMessageEvent(message, chatMessageEntity));
+        ScenarioValuePlayerComponent.PlayerType player = variables.get("player").getComponent(ScenarioValuePlayerComponent.class).type;
+        if (player == ScenarioValuePlayerComponent.PlayerType.TRIGGERING_PLAYER) {
+            EntityRef playerEnt = event.informationEntity.getComponent(InfoTriggeringEntityComponent.class).entity;
+            queueChat(Collections.singletonList(playerEnt.getOwner()), message, from, Color.CYAN);
         }
     }
 
+    @ReceiveEvent //Chat message to the players in a region
+    public void onEventTriggerEvent(EventTriggerEvent event, EntityRef entity, ScenarioSecondarySendRegionChatComponent action) {
+        Map<String, EntityRef> variables = entity.getComponent(ScenarioArgumentContainerComponent.class).arguments;
+
+        String message = evaluationPlans.evaluateString(variables.get("message"), event.informationEntity);
+
+        String from = evaluationPlans.evaluateString(variables.get("owner"), event.informationEntity);
+
+        EntityRef region = evaluationPlans.evaluateRegion(variables.get("region"), event.informationEntity);
+        RegionContainingEntitiesComponent containing = region.getComponent(RegionContainingEntitiesComponent.class);
+        if (containing != null) {
+            //Characters in the region are kept up to date by the RegionEventSystem, their owner is the client of the player
+            List<EntityRef> clients = new ArrayList<>();
+            for (EntityRef character : containing.entities) {
+                clients.add(character.getOwner());
+            }
+            queueChat(clients, message, from, Color.CYAN);
+        }
+    }
+
+    /**
+     * Destroys the retired chat senders whose time is up and sends all of the chat messages queued during this tick in the order they were
+     * queued, one chat message event for each message and client
+     */
+    @Override
+    public void update(float delta) {
+        chatTime += delta;
+        Iterator<Map.Entry<EntityRef, Float>> retired = retiredChatSenders.entrySet().iterator();
+        while (retired.hasNext()) {
+            Map.Entry<EntityRef, Float> sender = retired.next();
+            if (sender.getValue() > chatTime) {
+                break; //The remaining senders were evicted later
+            }
+            sender.getKey().destroy();
+            retired.remove();
+        }
+        if (pendingChats.isEmpty()) {
+            return;
+        }
+        for (PendingChat chat : pendingChats) {
+            EntityRef sender = getChatSender(chat.name, chat.color);
+            for (EntityRef client : chat.clients) {
+                if (client.exists()) { //Not disconnected since the message was queued
+                    client.send(new ChatMessageEvent(chat.message, sender));
+                    metrics.increment(CHAT_DELIVERIES_METRIC);
+                }
+            }
+        }
+        pendingChats.clear();
+    }
+
+    private void queueChat(Iterable<EntityRef> clients, String message, String from, Color color) {
+        PendingChat chat = new PendingChat(message, from, color);
+        for (EntityRef client : clients) {
+            if (client.hasComponent(ClientComponent.class)) {
+                chat.clients.add(client);
+            }
+        }
+        if (!chat.clients.isEmpty()) {
+            pendingChats.add(chat);
+            metrics.increment(CHAT_MESSAGES_METRIC);
+        }
+    }
+
+    private static String getChatSenderKey(String name, Color color) {
+        return name + '\u0000' + color.rgba();
+    }
+
+    /**
+     * @return a chat sender entity with the name and color, reused for every message from the same sender while it is cached
+     */
+    private EntityRef getChatSender(String name, Color color) {
+        String key = getChatSenderKey(name, color);
+        EntityRef sender = chatSenders.get(key);
+        if (sender == null || !sender.exists()) {
+            EntityBuilder builder = entityManager.newBuilder(assetManager.getAsset("scenario:scenarioChatEntity", Prefab.class).get());
+            builder.setPersistent(false);
+            builder.getComponent(DisplayNameComponent.class).name = name;
+            builder.getComponent(ColorComponent.class).color = color;
+            sender = builder.build();
+            chatSenders.put(key, sender);
+            metrics.setGauge(CHAT_SENDERS_METRIC, chatSenders.size());
+        }
+        return sender;
+    }
+
     @ReceiveEvent //Teleport player
     public void onEventTriggerEvent(EventTriggerEvent event, EntityRef entity, ScenarioSecondaryTeleportComponent action) {
         Map<String, EntityRef> variables = entity.getComponent(ScenarioArgumentContainerComponent.class).arguments;
 
-        EvaluateRegionEvent regionEvaluateEvent = new EvaluateRegionEvent(event.informationEntity);
-        variables.get("region1").send(regionEvaluateEvent);
-        Vector3f location = regionEvaluateEvent.getResult().getComponent(RegionLocationComponent.class).region.center(new Vector3f());
+        EntityRef region = evaluationPlans.evaluateRegion(variables.get("region1"), event.informationEntity);
+        Vector3f location = region.getComponent(RegionLocationComponent.class).region.center(new Vector3f());
 
         CharacterTeleportEvent teleportEvent = new CharacterTeleportEvent(location);
 
@@ -187,33 +367,25 @@ public class ActionEventSystem extends BaseComponentSystem {
     public void onEventTriggerEvent(EventTriggerEvent event, EntityRef entity, ScenarioSecondaryTakeItemComponent action) {
         Map<String, EntityRef> variables = entity.getComponent(ScenarioArgumentContainerComponent.class).arguments;
 
-        EvaluateItemPrefabEvent itemEvaluateEvent = new EvaluateItemPrefabEvent(event.informationEntity);
-        variables.get("item").send(itemEvaluateEvent);
-        Prefab itemPrefab = itemEvaluateEvent.getResult();
+        Prefab itemPrefab = evaluationPlans.evaluateItemPrefab(variables.get("item"), event.informationEntity);
 
-        EvaluateIntEvent intEvaluateEvent = new EvaluateIntEvent(event.informationEntity);
-        variables.get("amount").send(intEvaluateEvent);
-        int amount = intEvaluateEvent.getResult();
+        int amount = evaluationPlans.evaluateInt(variables.get("amount"), event.informationEntity);
 
         ScenarioValuePlayerComponent.PlayerType player = variables.get("player").getComponent(ScenarioValuePlayerComponent.class).type;
 
         if (player == ScenarioValuePlayerComponent.PlayerType.TRIGGERING_PLAYER) {
             EntityRef playerEnt = event.informationEntity.getComponent(InfoTriggeringEntityComponent.class).entity;
+            if (inventories.countItems(playerEnt, itemPrefab) == 0) {
+                return; //Nothing to take, no need to look through the slots
+            }
 
-            List<EntityRef> items = playerEnt.getComponent(InventoryComponent.class).itemSlots;
-
-            for (EntityRef e : items) {
+            List<EntityRef> matching = new ArrayList<>();
+            for (EntityRef e : playerEnt.getComponent(InventoryComponent.class).itemSlots) {
                 if (e.exists() && e.getParentPrefab().exists() && e.getParentPrefab().equals(itemPrefab)) {
-                    inventoryManager.removeItem(playerEnt, EntityRef.NULL, e, true, 1);
-                    amount--;
-                }
-
-                if (amount <= 0) {
-                    break;
+                    matching.add(e);
                 }
             }
-
-            playerEnt.saveComponent(playerEnt.getComponent(InventoryComponent.class));
+            takeItems(playerEnt, matching, amount);
         }
     }
 
@@ -221,50 +393,64 @@ public class ActionEventSystem extends BaseComponentSystem {
     public void onEventTriggerEvent(EventTriggerEvent event, EntityRef entity, ScenarioSecondaryTakeBlockComponent action) {
         Map<String, EntityRef> variables = entity.getComponent(ScenarioArgumentContainerComponent.class).arguments;
 
-        EvaluateBlockEvent evaluateBlockEvent = new EvaluateBlockEvent(event.informationEntity);
-        variables.get("block").send(evaluateBlockEvent);
-        BlockFamily blockFamily = evaluateBlockEvent.getResult();
+        BlockFamily blockFamily = evaluationPlans.evaluateBlock(variables.get("block"), event.informationEntity);
 
-        EvaluateIntEvent intEvaluateEvent = new EvaluateIntEvent(event.informationEntity);
-        variables.get("amount").send(intEvaluateEvent);
-        int amount = intEvaluateEvent.getResult();
+        int amount = evaluationPlans.evaluateInt(variables.get("amount"), event.informationEntity);
 
         ScenarioValuePlayerComponent.PlayerType player = variables.get("player").getComponent(ScenarioValuePlayerComponent.class).type;
 
         if (player == ScenarioValuePlayerComponent.PlayerType.TRIGGERING_PLAYER) {
             EntityRef playerEnt = event.informationEntity.getComponent(InfoTriggeringEntityComponent.class).entity;
+            if (inventories.countBlocks(playerEnt, blockFamily) == 0) {
+                return; //Nothing to take, no need to look through the slots
+            }
 
-            List<EntityRef> items = playerEnt.getComponent(InventoryComponent.class).itemSlots;
-
-            for (EntityRef e : items) {
-                if (e.hasComponent(BlockItemComponent.class)) {
-                    if (e.getComponent(BlockItemComponent.class).blockFamily.equals(blockFamily)) {
-                        ItemComponent itemComponent = e.getComponent(ItemComponent.class);
-                        if (itemComponent.stackCount > amount) {
-                            inventoryManager.removeItem(playerEnt, EntityRef.NULL, e, true, amount);
-                            break;
-                        } else if (itemComponent.stackCount == amount) {
-                            inventoryManager.removeItem(playerEnt, EntityRef.NULL, e, true, amount);
-                            break;
-                        } else { //Same item, but stack isn't big enough
-                            inventoryManager.removeItem(playerEnt, EntityRef.NULL, e, true, itemComponent.stackCount);
-                            amount -= itemComponent.stackCount;
-                        }
-                    }
+            List<EntityRef> matching = new ArrayList<>();
+            for (EntityRef e : playerEnt.getComponent(InventoryComponent.class).itemSlots) {
+                BlockItemComponent blockItem = e.getComponent(BlockItemComponent.class);
+                if (blockItem != null && blockItem.blockFamily.equals(blockFamily)) {
+                    matching.add(e);
                 }
             }
+            takeItems(playerEnt, matching, amount);
+        }
+    }
 
-            playerEnt.saveComponent(playerEnt.getComponent(InventoryComponent.class));
+    /**
+     * Takes up to amount of the items from the inventory, as much as the items hold in total
+     * <p>
+     * Items that stack with each other are taken in a single removal across all of their stacks, items that don't stack are only ever
+     * one per slot and are removed one at a time
+     *
+     * @param inventory the entity whose inventory holds the items
+     * @param items the slots holding the items to take, all of the same item
+     * @param amount the number of items to take
+     */
+    private void takeItems(EntityRef inventory, List<EntityRef> items, int amount) {
+        if (items.isEmpty() || amount <= 0) {
+            return;
+        }
+        int available = 0;
+        for (EntityRef item : items) {
+            available += item.getComponent(ItemComponent.class).stackCount;
         }
+        int count = Math.min(amount, available);
+
+        if (!items.get(0).getComponent(ItemComponent.class).stackId.isEmpty()) {
+            inventoryManager.removeItem(inventory, EntityRef.NULL, items, true, count);
+        } else {
+            for (int i = 0; i < count; i++) {
+                inventoryManager.removeItem(inventory, EntityRef.NULL, items.get(i), true, 1);
+            }
+        }
+        metrics.add(ITEMS_TAKEN_METRIC, count);
     }
 
     @ReceiveEvent //Heal Player
     public void onEventTriggerEvent(EventTriggerEvent event, EntityRef entity, ScenarioSecondaryHealAmountComponent action) {
         Map<String, EntityRef> variables = entity.getComponent(ScenarioArgumentContainerComponent.class).arguments;
 
-        EvaluateIntEvent intEvaluateEvent = new EvaluateIntEvent(event.informationEntity);
-        variables.get("amount").send(intEvaluateEvent);
-        int amount = intEvaluateEvent.getResult();
+        int amount = evaluationPlans.evaluateInt(variables.get("amount"), event.informationEntity);
 
         ScenarioValuePlayerComponent.PlayerType player = variables.get("player").getComponent(ScenarioValuePlayerComponent.class).type;
         if (player == ScenarioValuePlayerComponent.PlayerType.TRIGGERING_PLAYER) {
@@ -277,9 +463,7 @@ public class ActionEventSystem extends BaseComponentSystem {
     public void onEventTriggerEvent(EventTriggerEvent event, EntityRef entity, ScenarioSecondaryDamageAmountComponent action) {
         Map<String, EntityRef> variables = entity.getComponent(ScenarioArgumentContainerComponent.class).arguments;
 
-        EvaluateIntEvent intEvaluateEvent = new EvaluateIntEvent(event.informationEntity);
-        variables.get("amount").send(intEvaluateEvent);
-        int amount = intEvaluateEvent.getResult();
+        int amount = evaluationPlans.evaluateInt(variables.get("amount"), event.informationEntity);
 
         ScenarioValuePlayerComponent.PlayerType player = variables.get("player").getComponent(ScenarioValuePlayerComponent.class).type;
         if (player == ScenarioValuePlayerComponent.PlayerType.TRIGGERING_PLAYER) {
@@ -287,4 +471,20 @@ public class ActionEventSystem extends BaseComponentSystem {
             playerEnt.send(new DoDamageEvent(amount, EngineDamageTypes.DIRECT.get(), playerEnt));
         }
     }
+
+    /**
+     * A chat message queued for the clients it is sent to
+     */
+    private static class PendingChat {
+        private final String message;
+        private final String name;
+        private final Color color;
+        private final List<EntityRef> clients = new ArrayList<>();
+
+        PendingChat(String message, String name, Color color) {
+            this.message = message;
+            this.name = name;
+            this.color = color;
+        }
+    }
 }
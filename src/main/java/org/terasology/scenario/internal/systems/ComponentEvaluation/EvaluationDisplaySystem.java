@@ -15,6 +15,7 @@ import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
 import org.terasology.scenario.components.ScenarioArgumentContainerComponent;
 import org.terasology.scenario.components.information.ScenarioExpressionBlockCountComponent;
 import org.terasology.scenario.components.information.ScenarioExpressionConcatStringComponent;
+import org.terasology.scenario.components.information.ScenarioExpressionDestroyedBlockCountComponent;
 import org.terasology.scenario.components.information.ScenarioExpressionItemCountComponent;
 import org.terasology.scenario.components.information.ScenarioExpressionPlayerNameComponent;
 import org.terasology.scenario.components.information.ScenarioExpressionRandomIntComponent;
@@ -124,6 +125,17 @@ public class EvaluationDisplaySystem extends BaseComponentSystem {
         event.setResult("Count of " + itemName + " owned by " + player);
     }
 
+    @ReceiveEvent //Count of destroyed blocks
+    public void onEvaluateIntEvent(EvaluateDisplayEvent event, EntityRef entity, ScenarioExpressionDestroyedBlockCountComponent comp) {
+        Map<String, EntityRef> args = entity.getComponent(ScenarioArgumentContainerComponent.class).arguments;
+
+        EvaluateDisplayEvent evalBlock = new EvaluateDisplayEvent();
+        args.get("block").send(evalBlock);
+        String blockName = evalBlock.getResult();
+
+        event.setResult("Count of destroyed " + blockName);
+    }
+
     @ReceiveEvent //Count of blocks
     public void onEvaluateIntEvent(EvaluateDisplayEvent event, EntityRef entity, ScenarioExpressionBlockCountComponent comp) {
         Map<String, EntityRef> args = entity.getComponent(ScenarioArgumentContainerComponent.class).arguments;
@@ -0,0 +1,664 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.scenario.internal.systems.ComponentEvaluation;
+
+import com.google.common.collect.Iterables;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnChangedComponent;
+import org.terasology.engine.entitySystem.event.EventPriority;
+import org.terasology.engine.entitySystem.event.Priority;
+import org.terasology.engine.entitySystem.prefab.Prefab;
+import org.terasology.engine.entitySystem.prefab.PrefabManager;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.registry.In;
+import org.terasology.engine.registry.Share;
+import org.terasology.engine.utilities.random.FastRandom;
+import org.terasology.engine.utilities.random.Random;
+import org.terasology.engine.world.block.BlockManager;
+import org.terasology.engine.world.block.family.BlockFamily;
+import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
+import org.terasology.scenario.components.ScenarioArgumentContainerComponent;
+import org.terasology.scenario.components.ScenarioComponent;
+import org.terasology.scenario.components.ScenarioHubToolUpdateComponent;
+import org.terasology.scenario.components.conditionals.ScenarioSecondaryBlockCompareComponent;
+import org.terasology.scenario.components.conditionals.ScenarioSecondaryIntCompareComponent;
+import org.terasology.scenario.components.conditionals.ScenarioSecondaryPlayerRegionComponent;
+import org.terasology.scenario.components.events.triggerInformation.InfoTriggerRegionComponent;
+import org.terasology.scenario.components.information.ScenarioExpressionBlockCountComponent;
+import org.terasology.scenario.components.information.ScenarioExpressionConcatStringComponent;
+import org.terasology.scenario.components.information.ScenarioExpressionDestroyedBlockCountComponent;
+import org.terasology.scenario.components.information.ScenarioExpressionItemCountComponent;
+import org.terasology.scenario.components.information.ScenarioExpressionPlayerNameComponent;
+import org.terasology.scenario.components.information.ScenarioExpressionRandomIntComponent;
+import org.terasology.scenario.components.information.ScenarioExpressionRegionNameComponent;
+import org.terasology.scenario.components.information.ScenarioValueBlockUriComponent;
+import org.terasology.scenario.components.information.ScenarioValueComparatorComponent;
+import org.terasology.scenario.components.information.ScenarioValueIntegerComponent;
+import org.terasology.scenario.components.information.ScenarioValueItemPrefabUriComponent;
+import org.terasology.scenario.components.information.ScenarioValuePlayerComponent;
+import org.terasology.scenario.components.information.ScenarioValueRegionComponent;
+import org.terasology.scenario.components.information.ScenarioValueStringComponent;
+import org.terasology.scenario.components.information.ScenarioValueTriggeringBlockComponent;
+import org.terasology.scenario.components.information.ScenarioValueTriggeringRegionComponent;
+import org.terasology.scenario.internal.events.LogicTreeDeleteEvent;
+import org.terasology.scenario.internal.events.ReplaceEntityFromConstructionStringsEvent;
+import org.terasology.scenario.internal.events.ReplaceEntityFromEncodedConstructionEvent;
+import org.terasology.scenario.internal.events.ScenarioImportedEvent;
+import org.terasology.scenario.internal.events.evaluationEvents.ConditionalCheckEvent;
+import org.terasology.scenario.internal.events.evaluationEvents.EvaluateBlockEvent;
+import org.terasology.scenario.internal.events.evaluationEvents.EvaluateComparatorEvent;
+import org.terasology.scenario.internal.events.evaluationEvents.EvaluateIntEvent;
+import org.terasology.scenario.internal.events.evaluationEvents.EvaluateItemPrefabEvent;
+import org.terasology.scenario.internal.events.evaluationEvents.EvaluateRegionEvent;
+import org.terasology.scenario.internal.events.evaluationEvents.EvaluateStringEvent;
+import org.terasology.scenario.internal.systems.InventorySummarySystem;
+import org.terasology.scenario.internal.systems.ScenarioMetricsSystem;
+import org.terasology.scenario.internal.utilities.LogicEntityTrees;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Compiles the argument trees of scenario logic entities into plain Java evaluation plans so that hot triggers don't need an event
+ * dispatch and argument map lookup for every node of the tree each time they fire
+ * <p>
+ * A plan is compiled the first time an argument or conditional entity is evaluated and cached until the logic entity it belongs to is
+ * edited. Plans give the same results as {@link EvaluationSystem}, value and expression components that are not known to the compiler
+ * (for example ones added by other modules) are still evaluated by sending the evaluation event to the entity
+ * <p>
+ * Plans are evaluated with the information entity of the trigger, just like the evaluation events
+ * <p>
+ * Constant values are resolved while compiling (block families and prefabs are only looked up once) and expressions or conditionals whose
+ * arguments are all constant are folded into a single constant. Region names are never folded as regions can be renamed without editing
+ * the logic tree
+ */
+@Share(EvaluationPlanSystem.class)
+@RegisterSystem(RegisterMode.AUTHORITY)
+public class EvaluationPlanSystem extends BaseComponentSystem {
+    public static final String COMPILED_METRIC = "evaluation.plansCompiled";
+    public static final String FALLBACK_METRIC = "evaluation.eventFallbacksCompiled";
+    public static final String FOLDED_METRIC = "evaluation.constantsFolded";
+    public static final String REORDERED_METRIC = "evaluation.conditionsReordered";
+
+    /**
+     * Number of times the conditions of a trigger are checked before their order is recalculated from the observed statistics
+     */
+    private static final int REORDER_INTERVAL = 64;
+
+    /**
+     * Nanoseconds per unit of {@link #estimateCost(EntityRef)} until conditionals have been measured to calibrate it
+     */
+    private static final double DEFAULT_NANOS_PER_COST_UNIT = 200;
+
+    @In
+    private BlockManager blockManager;
+
+    @In
+    private PrefabManager prefabManager;
+
+    @In
+    private InventorySummarySystem inventories;
+
+    @In
+    private ScenarioMetricsSystem metrics;
+
+    @In
+    private EvaluationSystem evaluationSystem;
+
+    private final Random random = new FastRandom();
+
+    private final Map<EntityRef, ToIntFunction<EntityRef>> intPlans = new HashMap<>();
+    private final Map<EntityRef, Function<EntityRef, String>> stringPlans = new HashMap<>();
+    private final Map<EntityRef, Function<EntityRef, BlockFamily>> blockPlans = new HashMap<>();
+    private final Map<EntityRef, Function<EntityRef, Prefab>> itemPrefabPlans = new HashMap<>();
+    private final Map<EntityRef, Function<EntityRef, EntityRef>> regionPlans = new HashMap<>();
+    private final Map<EntityRef, Function<EntityRef, ScenarioValueComparatorComponent.Comparison>> comparatorPlans = new HashMap<>();
+    private final Map<EntityRef, Predicate<EntityRef>> conditionPlans = new HashMap<>();
+
+    /**
+     * Entities whose plan doesn't depend on the information entity and always gives the same result, expressions whose arguments are all
+     * in here are folded into a constant as well
+     */
+    private final Set<EntityRef> constantArguments = new HashSet<>();
+
+    /**
+     * Entity that each compiled argument was compiled for and the arguments compiled for each entity, so that editing an entity only
+     * drops the plans of the logic entity it belongs to
+     */
+    private final Map<EntityRef, EntityRef> planParents = new HashMap<>();
+    private final Map<EntityRef, Set<EntityRef>> planArguments = new HashMap<>();
+    private final Deque<EntityRef> compiling = new ArrayDeque<>();
+
+    private final Map<EntityRef, ConditionStatistics> conditionStatistics = new HashMap<>();
+    private final Map<EntityRef, ConditionOrder> conditionOrders = new HashMap<>();
+
+    /**
+     * Measured time and estimated cost of all conditional checks, so that estimates of conditionals that were never checked can be
+     * compared with the measured time of the others. Kept across invalidations as it depends on the machine and not on the logic tree,
+     * just like the statistics of the conditionals themselves
+     */
+    private long measuredNanos;
+    private double measuredCostUnits;
+
+    public int evaluateInt(EntityRef argument, EntityRef passed) {
+        return getIntPlan(argument).applyAsInt(passed);
+    }
+
+    public String evaluateString(EntityRef argument, EntityRef passed) {
+        return getStringPlan(argument).apply(passed);
+    }
+
+    public BlockFamily evaluateBlock(EntityRef argument, EntityRef passed) {
+        return getBlockPlan(argument).apply(passed);
+    }
+
+    public Prefab evaluateItemPrefab(EntityRef argument, EntityRef passed) {
+        return getItemPrefabPlan(argument).apply(passed);
+    }
+
+    public EntityRef evaluateRegion(EntityRef argument, EntityRef passed) {
+        return getRegionPlan(argument).apply(passed);
+    }
+
+    public ScenarioValueComparatorComponent.Comparison evaluateComparator(EntityRef argument, EntityRef passed) {
+        return getComparatorPlan(argument).apply(passed);
+    }
+
+    /**
+     * @param conditional a conditional logic entity of a trigger
+     * @param passed the information entity of the trigger
+     * @return if the conditional is satisfied
+     */
+    public boolean checkCondition(EntityRef conditional, EntityRef passed) {
+        return getConditionPlan(conditional).test(passed);
+    }
+
+    /**
+     * Checks if all of the conditionals of a trigger are satisfied, stopping at the first one that isn't.
+     * <p>
+     * As all of them need to be satisfied the result doesn't depend on the order they are checked in, so they are checked in the order
+     * that is expected to reject the trigger the cheapest: by their average cost divided by the chance of them not being satisfied. Both
+     * are observed while checking, conditionals that were never checked start out with a cost estimated from their argument tree.
+     *
+     * @param trigger the trigger that the conditionals belong to
+     * @param conditionals the conditionals of the trigger, in the order of the logic tree
+     * @param passed the information entity of the trigger
+     * @return if all of the conditionals are satisfied
+     */
+    public boolean checkConditions(EntityRef trigger, List<EntityRef> conditionals, EntityRef passed) {
+        if (conditionals.isEmpty()) {
+            return true;
+        }
+        ConditionOrder order = conditionOrders.get(trigger);
+        if (order == null || !order.conditionals.equals(conditionals)) {
+            order = new ConditionOrder(conditionals);
+            conditionOrders.put(trigger, order);
+            sortConditions(order);
+        } else if (++order.checks % REORDER_INTERVAL == 0) {
+            sortConditions(order);
+        }
+
+        for (EntityRef conditional : order.sorted) {
+            ConditionStatistics statistics = getConditionStatistics(conditional);
+            long start = System.nanoTime();
+            boolean satisfied = getConditionPlan(conditional).test(passed);
+            long nanos = System.nanoTime() - start;
+            statistics.record(nanos, satisfied);
+            measuredNanos += nanos;
+            measuredCostUnits += statistics.estimatedCost;
+            if (!satisfied) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Priority(EventPriority.PRIORITY_TRIVIAL)
+    @ReceiveEvent
+    public void onLogicTreeDeleteEvent(LogicTreeDeleteEvent event, EntityRef entity, ScenarioHubToolUpdateComponent component) {
+        invalidate(event.getDeleteEntity());
+        removeDestroyed();
+    }
+
+    @Priority(EventPriority.PRIORITY_TRIVIAL)
+    @ReceiveEvent
+    public void onReplaceEntityEvent(ReplaceEntityFromConstructionStringsEvent event, EntityRef entity,
+                                     ScenarioHubToolUpdateComponent component) {
+        invalidate(event.getReplaced());
+        removeDestroyed();
+    }
+
+    @Priority(EventPriority.PRIORITY_TRIVIAL)
+    @ReceiveEvent
+    public void onReplaceEntityEvent(ReplaceEntityFromEncodedConstructionEvent event, EntityRef entity,
+                                     ScenarioHubToolUpdateComponent component) {
+        invalidate(event.getReplaced());
+        removeDestroyed();
+    }
+
+    @Priority(EventPriority.PRIORITY_TRIVIAL)
+    @ReceiveEvent
+    public void onScenarioImported(ScenarioImportedEvent event, EntityRef entity, ScenarioComponent component) {
+        invalidate();
+    }
+
+    @ReceiveEvent
+    public void onArgumentsChanged(OnChangedComponent event, EntityRef entity, ScenarioArgumentContainerComponent component) {
+        if (!LogicEntityTrees.isTemporary(entity)) { //Edit copies of the logic screens are never evaluated
+            invalidate(entity);
+        }
+    }
+
+    /**
+     * Drops all compiled plans and the constants resolved by {@link EvaluationSystem}, they are resolved again from the current logic tree
+     * when next needed. The statistics of conditionals that still exist are kept
+     */
+    public void invalidate() {
+        intPlans.clear();
+        stringPlans.clear();
+        blockPlans.clear();
+        itemPrefabPlans.clear();
+        regionPlans.clear();
+        comparatorPlans.clear();
+        conditionPlans.clear();
+        constantArguments.clear();
+        planParents.clear();
+        planArguments.clear();
+        removeDestroyed();
+        evaluationSystem.clearResolvedConstants();
+    }
+
+    /**
+     * Drops the plans of the logic entity (event, conditional, action or the argument an action evaluates) that an edited entity belongs
+     * to, the plans of all other logic entities stay compiled
+     *
+     * @param entity the edited entity, anywhere in the argument tree
+     */
+    public void invalidate(EntityRef entity) {
+        EntityRef root = entity;
+        while (planParents.containsKey(root)) {
+            root = planParents.get(root);
+        }
+        removePlans(root);
+    }
+
+    private void removePlans(EntityRef entity) {
+        intPlans.remove(entity);
+        stringPlans.remove(entity);
+        blockPlans.remove(entity);
+        itemPrefabPlans.remove(entity);
+        regionPlans.remove(entity);
+        comparatorPlans.remove(entity);
+        conditionPlans.remove(entity);
+        constantArguments.remove(entity);
+        planParents.remove(entity);
+        Set<EntityRef> arguments = planArguments.remove(entity);
+        if (arguments != null) {
+            arguments.forEach(this::removePlans);
+        }
+    }
+
+    /**
+     * Drops the plans and statistics of entities that were destroyed by an edit, for example the old argument of an action whose
+     * argument was replaced. Only done for the edits of the logic tree and not for every changed argument container, as it goes over all
+     * plans
+     */
+    private void removeDestroyed() {
+        List<EntityRef> destroyed = new ArrayList<>();
+        for (EntityRef entity : Iterables.concat(intPlans.keySet(), stringPlans.keySet(), blockPlans.keySet(), itemPrefabPlans.keySet(),
+                regionPlans.keySet(), comparatorPlans.keySet(), conditionPlans.keySet())) {
+            if (!entity.exists()) {
+                destroyed.add(entity);
+            }
+        }
+        destroyed.forEach(this::removePlans);
+        conditionStatistics.keySet().removeIf(conditional -> !conditional.exists());
+        conditionOrders.keySet().removeIf(trigger -> !trigger.exists());
+    }
+
+    /*
+     * Plans are looked up and stored without computeIfAbsent as compiling an expression recursively compiles its arguments into the
+     * same maps
+     */
+
+    private ToIntFunction<EntityRef> getIntPlan(EntityRef argument) {
+        return getPlan(intPlans, argument, this::compileInt);
+    }
+
+    private Function<EntityRef, String> getStringPlan(EntityRef argument) {
+        return getPlan(stringPlans, argument, this::compileString);
+    }
+
+    private Function<EntityRef, BlockFamily> getBlockPlan(EntityRef argument) {
+        return getPlan(blockPlans, argument, this::compileBlock);
+    }
+
+    private Function<EntityRef, Prefab> getItemPrefabPlan(EntityRef argument) {
+        return getPlan(itemPrefabPlans, argument, this::compileItemPrefab);
+    }
+
+    private Function<EntityRef, EntityRef> getRegionPlan(EntityRef argument) {
+        return getPlan(regionPlans, argument, this::compileRegion);
+    }
+
+    private Function<EntityRef, ScenarioValueComparatorComponent.Comparison> getComparatorPlan(EntityRef argument) {
+        return getPlan(comparatorPlans, argument, this::compileComparator);
+    }
+
+    private Predicate<EntityRef> getConditionPlan(EntityRef conditional) {
+        return getPlan(conditionPlans, conditional, this::compileCondition);
+    }
+
+    /**
+     * Looks up the plan of an entity or compiles it, an entity that is compiled while compiling another one is recorded as its argument
+     */
+    private <T> T getPlan(Map<EntityRef, T> plans, EntityRef entity, Function<EntityRef, T> compiler) {
+        if (!compiling.isEmpty()) {
+            planParents.put(entity, compiling.peek());
+            planArguments.computeIfAbsent(compiling.peek(), k -> new HashSet<>()).add(entity);
+        }
+        T plan = plans.get(entity);
+        if (plan == null) {
+            compiling.push(entity);
+            try {
+                plan = compiler.apply(entity);
+            } finally {
+                compiling.pop();
+            }
+            plans.put(entity, plan);
+            metrics.increment(COMPILED_METRIC);
+        }
+        return plan;
+    }
+
+    private ToIntFunction<EntityRef> compileInt(EntityRef argument) {
+        ScenarioValueIntegerComponent value = argument.getComponent(ScenarioValueIntegerComponent.class);
+        if (value != null) {
+            int constant = value.value;
+            constantArguments.add(argument);
+            return passed -> constant;
+        }
+        if (argument.hasComponent(ScenarioExpressionRandomIntComponent.class)) {
+            Map<String, EntityRef> args = getArguments(argument);
+            ToIntFunction<EntityRef> int1 = getIntPlan(args.get("int1"));
+            ToIntFunction<EntityRef> int2 = getIntPlan(args.get("int2"));
+            return passed -> random.nextInt(int1.applyAsInt(passed), int2.applyAsInt(passed));
+        }
+        if (argument.hasComponent(ScenarioExpressionItemCountComponent.class)) {
+            Function<EntityRef, Prefab> item = getItemPrefabPlan(getArguments(argument).get("item"));
+            return passed -> EvaluationSystem.countItems(inventories, passed, item.apply(passed));
+        }
+        if (argument.hasComponent(ScenarioExpressionBlockCountComponent.class)) {
+            Map<String, EntityRef> args = getArguments(argument);
+            ScenarioValuePlayerComponent.PlayerType player = args.get("player").getComponent(ScenarioValuePlayerComponent.class).type;
+            Function<EntityRef, BlockFamily> block = getBlockPlan(args.get("block"));
+            if (player != ScenarioValuePlayerComponent.PlayerType.TRIGGERING_PLAYER) {
+                return passed -> 0;
+            }
+            return passed -> EvaluationSystem.countBlocks(inventories, passed, block.apply(passed));
+        }
+        if (argument.hasComponent(ScenarioExpressionDestroyedBlockCountComponent.class)) {
+            Function<EntityRef, BlockFamily> block = getBlockPlan(getArguments(argument).get("block"));
+            return passed -> EvaluationSystem.countDestroyedBlocks(passed, block.apply(passed));
+        }
+        metrics.increment(FALLBACK_METRIC);
+        return passed -> {
+            EvaluateIntEvent event = new EvaluateIntEvent(passed);
+            argument.send(event);
+            return event.getResult();
+        };
+    }
+
+    private Function<EntityRef, String> compileString(EntityRef argument) {
+        ScenarioValueStringComponent value = argument.getComponent(ScenarioValueStringComponent.class);
+        if (value != null) {
+            String constant = value.string;
+            constantArguments.add(argument);
+            return passed -> constant;
+        }
+        if (argument.hasComponent(ScenarioExpressionConcatStringComponent.class)) {
+            Map<String, EntityRef> args = getArguments(argument);
+            Function<EntityRef, String> string1 = getStringPlan(args.get("string1"));
+            Function<EntityRef, String> string2 = getStringPlan(args.get("string2"));
+            if (isConstant(args.get("string1")) && isConstant(args.get("string2"))) {
+                String folded = string1.apply(EntityRef.NULL) + string2.apply(EntityRef.NULL);
+                markFolded(argument);
+                return passed -> folded;
+            }
+            return passed -> string1.apply(passed) + string2.apply(passed);
+        }
+        if (argument.hasComponent(ScenarioExpressionPlayerNameComponent.class)) {
+            return EvaluationSystem::getPlayerName;
+        }
+        if (argument.hasComponent(ScenarioExpressionRegionNameComponent.class)) {
+            Function<EntityRef, EntityRef> region = getRegionPlan(getArguments(argument).get("region"));
+            return passed -> EvaluationSystem.getColoredRegionName(region.apply(passed));
+        }
+        metrics.increment(FALLBACK_METRIC);
+        return passed -> {
+            EvaluateStringEvent event = new EvaluateStringEvent(passed);
+            argument.send(event);
+            return event.getResult();
+        };
+    }
+
+    private Function<EntityRef, BlockFamily> compileBlock(EntityRef argument) {
+        ScenarioValueBlockUriComponent value = argument.getComponent(ScenarioValueBlockUriComponent.class);
+        if (value != null) {
+            BlockFamily constant = blockManager.getBlockFamily(value.blockUri);
+            constantArguments.add(argument);
+            return passed -> constant;
+        }
+        if (argument.hasComponent(ScenarioValueTriggeringBlockComponent.class)) {
+            return EvaluationSystem::getTriggeringBlock;
+        }
+        metrics.increment(FALLBACK_METRIC);
+        return passed -> {
+            EvaluateBlockEvent event = new EvaluateBlockEvent(passed);
+            argument.send(event);
+            return event.getResult();
+        };
+    }
+
+    private Function<EntityRef, Prefab> compileItemPrefab(EntityRef argument) {
+        ScenarioValueItemPrefabUriComponent value = argument.getComponent(ScenarioValueItemPrefabUriComponent.class);
+        if (value != null) {
+            Prefab constant = prefabManager.getPrefab(value.prefabURI);
+            constantArguments.add(argument);
+            return passed -> constant;
+        }
+        metrics.increment(FALLBACK_METRIC);
+        return passed -> {
+            EvaluateItemPrefabEvent event = new EvaluateItemPrefabEvent(passed);
+            argument.send(event);
+            return event.getResult();
+        };
+    }
+
+    private Function<EntityRef, EntityRef> compileRegion(EntityRef argument) {
+        ScenarioValueRegionComponent value = argument.getComponent(ScenarioValueRegionComponent.class);
+        if (value != null) {
+            EntityRef constant = value.regionEntity;
+            constantArguments.add(argument);
+            return passed -> constant;
+        }
+        if (argument.hasComponent(ScenarioValueTriggeringRegionComponent.class)) {
+            return passed -> passed.getComponent(InfoTriggerRegionComponent.class).region;
+        }
+        metrics.increment(FALLBACK_METRIC);
+        return passed -> {
+            EvaluateRegionEvent event = new EvaluateRegionEvent(passed);
+            argument.send(event);
+            return event.getResult();
+        };
+    }
+
+    private Function<EntityRef, ScenarioValueComparatorComponent.Comparison> compileComparator(EntityRef argument) {
+        ScenarioValueComparatorComponent value = argument.getComponent(ScenarioValueComparatorComponent.class);
+        if (value != null) {
+            ScenarioValueComparatorComponent.Comparison constant = value.compare;
+            constantArguments.add(argument);
+            return passed -> constant;
+        }
+        metrics.increment(FALLBACK_METRIC);
+        return passed -> {
+            EvaluateComparatorEvent event = new EvaluateComparatorEvent(passed);
+            argument.send(event);
+            return event.getResult();
+        };
+    }
+
+    private Predicate<EntityRef> compileCondition(EntityRef conditional) {
+        if (conditional.hasComponent(ScenarioSecondaryBlockCompareComponent.class)) {
+            Map<String, EntityRef> args = getArguments(conditional);
+            Function<EntityRef, BlockFamily> block1 = getBlockPlan(args.get("block1"));
+            Function<EntityRef, BlockFamily> block2 = getBlockPlan(args.get("block2"));
+            if (isConstant(args.get("block1")) && isConstant(args.get("block2"))) {
+                boolean folded = block1.apply(EntityRef.NULL).equals(block2.apply(EntityRef.NULL));
+                markFolded(conditional);
+                return passed -> folded;
+            }
+            return passed -> block1.apply(passed).equals(block2.apply(passed));
+        }
+        if (conditional.hasComponent(ScenarioSecondaryIntCompareComponent.class)) {
+            Map<String, EntityRef> args = getArguments(conditional);
+            ToIntFunction<EntityRef> int1 = getIntPlan(args.get("int1"));
+            ToIntFunction<EntityRef> int2 = getIntPlan(args.get("int2"));
+            Function<EntityRef, ScenarioValueComparatorComponent.Comparison> compare = getComparatorPlan(args.get("compare"));
+            if (isConstant(args.get("int1")) && isConstant(args.get("int2")) && isConstant(args.get("compare"))) {
+                boolean folded = compare.apply(EntityRef.NULL).evaluate(int1.applyAsInt(EntityRef.NULL), int2.applyAsInt(EntityRef.NULL));
+                markFolded(conditional);
+                return passed -> folded;
+            }
+            return passed -> {
+                int value1 = int1.applyAsInt(passed);
+                int value2 = int2.applyAsInt(passed);
+                return compare.apply(passed).evaluate(value1, value2);
+            };
+        }
+        if (conditional.hasComponent(ScenarioSecondaryPlayerRegionComponent.class)) {
+            Function<EntityRef, EntityRef> region = getRegionPlan(getArguments(conditional).get("region"));
+            return passed -> EvaluationSystem.isPlayerInRegion(passed, region.apply(passed));
+        }
+        metrics.increment(FALLBACK_METRIC);
+        return passed -> {
+            ConditionalCheckEvent event = new ConditionalCheckEvent(passed);
+            conditional.send(event);
+            return event.getResult();
+        };
+    }
+
+    private void sortConditions(ConditionOrder order) {
+        List<EntityRef> previous = new ArrayList<>(order.sorted);
+        double nanosPerCostUnit = measuredCostUnits > 0 ? measuredNanos / measuredCostUnits : DEFAULT_NANOS_PER_COST_UNIT;
+        order.sorted.sort(Comparator.comparingDouble(conditional -> getConditionStatistics(conditional).getRank(nanosPerCostUnit)));
+        if (!previous.equals(order.sorted)) {
+            metrics.increment(REORDERED_METRIC);
+        }
+    }
+
+    private ConditionStatistics getConditionStatistics(EntityRef conditional) {
+        ConditionStatistics statistics = conditionStatistics.get(conditional);
+        if (statistics == null) {
+            statistics = new ConditionStatistics(estimateCost(conditional));
+            conditionStatistics.put(conditional, statistics);
+        }
+        return statistics;
+    }
+
+    /**
+     * Rough relative cost of evaluating a logic entity and its arguments, only used until the actual cost has been observed
+     */
+    private double estimateCost(EntityRef entity) {
+        double cost;
+        if (entity.hasComponent(ScenarioExpressionItemCountComponent.class)
+                || entity.hasComponent(ScenarioExpressionBlockCountComponent.class)) {
+            cost = 50; //Scans the whole inventory
+        } else if (entity.hasComponent(ScenarioSecondaryPlayerRegionComponent.class)
+                || entity.hasComponent(ScenarioExpressionPlayerNameComponent.class)
+                || entity.hasComponent(ScenarioExpressionRegionNameComponent.class)) {
+            cost = 10; //Follows several entities
+        } else {
+            cost = 1;
+        }
+        ScenarioArgumentContainerComponent arguments = entity.getComponent(ScenarioArgumentContainerComponent.class);
+        if (arguments != null) {
+            for (EntityRef argument : arguments.arguments.values()) {
+                cost += estimateCost(argument);
+            }
+        }
+        return cost;
+    }
+
+    private boolean isConstant(EntityRef argument) {
+        return constantArguments.contains(argument);
+    }
+
+    private void markFolded(EntityRef entity) {
+        constantArguments.add(entity);
+        metrics.increment(FOLDED_METRIC);
+    }
+
+    private Map<String, EntityRef> getArguments(EntityRef entity) {
+        return entity.getComponent(ScenarioArgumentContainerComponent.class).arguments;
+    }
+
+    /**
+     * Conditionals of a trigger in the order they are checked in
+     */
+    private static class ConditionOrder {
+        private final List<EntityRef> conditionals;
+        private final List<EntityRef> sorted;
+        private int checks;
+
+        ConditionOrder(List<EntityRef> conditionals) {
+            this.conditionals = new ArrayList<>(conditionals);
+            this.sorted = new ArrayList<>(conditionals);
+        }
+    }
+
+    /**
+     * Observed cost and selectivity of a conditional
+     */
+    private static class ConditionStatistics {
+        private final double estimatedCost;
+        private long checks;
+        private long rejections;
+        private long totalNanos;
+
+        ConditionStatistics(double estimatedCost) {
+            this.estimatedCost = estimatedCost;
+        }
+
+        void record(long nanos, boolean satisfied) {
+            checks++;
+            totalNanos += nanos;
+            if (!satisfied) {
+                rejections++;
+            }
+        }
+
+        /**
+         * @param nanosPerCostUnit the average measured nanoseconds per unit of estimated cost, to turn the estimate into nanoseconds
+         * @return the expected nanoseconds spent for rejecting a trigger with this conditional, lower is checked first
+         */
+        double getRank(double nanosPerCostUnit) {
+            //Smoothed so that conditionals that were never checked or never rejected still get a rank
+            double rejectionChance = (rejections + 1.0) / (checks + 2.0);
+            double cost = checks == 0 ? estimatedCost * nanosPerCostUnit : (double) totalNanos / checks;
+            return cost / rejectionChance;
+        }
+    }
+}
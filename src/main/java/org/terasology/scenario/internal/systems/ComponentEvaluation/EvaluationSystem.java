@@ -12,28 +12,28 @@ import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
 import org.terasology.engine.entitySystem.systems.RegisterMode;
 import org.terasology.engine.entitySystem.systems.RegisterSystem;
 import org.terasology.engine.logic.common.DisplayNameComponent;
-import org.terasology.engine.logic.inventory.ItemComponent;
 import org.terasology.engine.logic.location.LocationComponent;
 import org.terasology.engine.network.ClientComponent;
 import org.terasology.engine.registry.In;
+import org.terasology.engine.registry.Share;
 import org.terasology.engine.utilities.random.FastRandom;
 import org.terasology.engine.utilities.random.Random;
 import org.terasology.engine.world.block.BlockComponent;
 import org.terasology.engine.world.block.BlockManager;
 import org.terasology.engine.world.block.family.BlockFamily;
-import org.terasology.engine.world.block.items.BlockItemComponent;
 import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
-import org.terasology.module.inventory.components.InventoryComponent;
 import org.terasology.nui.FontColor;
 import org.terasology.scenario.components.ScenarioArgumentContainerComponent;
 import org.terasology.scenario.components.conditionals.ScenarioSecondaryBlockCompareComponent;
 import org.terasology.scenario.components.conditionals.ScenarioSecondaryIntCompareComponent;
 import org.terasology.scenario.components.conditionals.ScenarioSecondaryPlayerRegionComponent;
+import org.terasology.scenario.components.events.triggerInformation.InfoDestroyedBlockBatchComponent;
 import org.terasology.scenario.components.events.triggerInformation.InfoDestroyedBlockComponent;
 import org.terasology.scenario.components.events.triggerInformation.InfoTriggerRegionComponent;
 import org.terasology.scenario.components.events.triggerInformation.InfoTriggeringEntityComponent;
 import org.terasology.scenario.components.information.ScenarioExpressionBlockCountComponent;
 import org.terasology.scenario.components.information.ScenarioExpressionConcatStringComponent;
+import org.terasology.scenario.components.information.ScenarioExpressionDestroyedBlockCountComponent;
 import org.terasology.scenario.components.information.ScenarioExpressionItemCountComponent;
 import org.terasology.scenario.components.information.ScenarioExpressionPlayerNameComponent;
 import org.terasology.scenario.components.information.ScenarioExpressionRandomIntComponent;
@@ -57,7 +57,9 @@ import org.terasology.scenario.internal.events.evaluationEvents.EvaluateIntEvent
 import org.terasology.scenario.internal.events.evaluationEvents.EvaluateItemPrefabEvent;
 import org.terasology.scenario.internal.events.evaluationEvents.EvaluateRegionEvent;
 import org.terasology.scenario.internal.events.evaluationEvents.EvaluateStringEvent;
+import org.terasology.scenario.internal.systems.InventorySummarySystem;
 
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -69,6 +71,7 @@ import java.util.Map;
  * Argument entities include: Network Component Type Component Value or Expression Component (Values are constant values, expressions are
  * evaluated to obtain the value)
  */
+@Share(EvaluationSystem.class)
 @RegisterSystem(RegisterMode.AUTHORITY)
 public class EvaluationSystem extends BaseComponentSystem {
 
@@ -80,6 +83,25 @@ public class EvaluationSystem extends BaseComponentSystem {
     @In
     private PrefabManager prefabManager;
 
+    @In
+    private InventorySummarySystem inventories;
+
+    /**
+     * Resolved constants by their uri, the uri of a constant only changes by editing it so a resolved handle can be reused for every
+     * evaluation until the logic tree changes, see {@link #clearResolvedConstants()}
+     */
+    private final Map<String, BlockFamily> blockFamilies = new HashMap<>();
+    private final Map<String, Prefab> prefabs = new HashMap<>();
+
+    /**
+     * Drops the resolved block families and prefabs, called together with the invalidation of the compiled plans of {@link
+     * EvaluationPlanSystem}
+     */
+    public void clearResolvedConstants() {
+        blockFamilies.clear();
+        prefabs.clear();
+    }
+
     @ReceiveEvent
     public void onEvaluateIntEvent(EvaluateIntEvent event, EntityRef entity, ScenarioValueIntegerComponent component) {
         event.setResult(component.value);
@@ -108,14 +130,12 @@ public class EvaluationSystem extends BaseComponentSystem {
 
     @ReceiveEvent
     public void onEvaluateBlockEvent(EvaluateBlockEvent event, EntityRef entity, ScenarioValueBlockUriComponent component) {
-        event.setResult(blockManager.getBlockFamily(component.blockUri));
+        event.setResult(blockFamilies.computeIfAbsent(component.blockUri, blockManager::getBlockFamily));
     }
 
     @ReceiveEvent
     public void onEvaluateBlockEvent(EvaluateBlockEvent event, EntityRef entity, ScenarioValueTriggeringBlockComponent comp) {
-        EntityRef passed = event.getPassedEntity();
-        BlockComponent block = passed.getComponent(InfoDestroyedBlockComponent.class).destroyedBlock.getComponent(BlockComponent.class);
-        event.setResult(block.getBlock().getBlockFamily());
+        event.setResult(getTriggeringBlock(event.getPassedEntity()));
     }
 
     @ReceiveEvent
@@ -135,45 +155,23 @@ public class EvaluationSystem extends BaseComponentSystem {
 
     @ReceiveEvent
     public void onEvaluateItemPrefabEvent(EvaluateItemPrefabEvent event, EntityRef entity, ScenarioValueItemPrefabUriComponent component) {
-        event.setResult(prefabManager.getPrefab(component.prefabURI));
+        event.setResult(prefabs.computeIfAbsent(component.prefabURI, prefabManager::getPrefab));
     }
 
     @ReceiveEvent
     public void onEvaluateCountItem(EvaluateIntEvent event, EntityRef entity, ScenarioExpressionItemCountComponent component) {
         Map<String, EntityRef> args = entity.getComponent(ScenarioArgumentContainerComponent.class).arguments;
 
-        //TODO: Replaced once evaluation of player is done
-        InfoTriggeringEntityComponent temp = event.getPassedEntity().getComponent(InfoTriggeringEntityComponent.class);
-        InventoryComponent invent = temp.entity.getComponent(InventoryComponent.class);
-
-
         EvaluateItemPrefabEvent evalPrefab = new EvaluateItemPrefabEvent(event.getPassedEntity());
         args.get("item").send(evalPrefab);
         Prefab prefab = evalPrefab.getResult();
 
-        int count = 0;
-        for (EntityRef e : invent.itemSlots) {
-            if (e.exists() && e.getParentPrefab().exists()) {
-                if (e.getParentPrefab().equals(prefab)) {
-                    count++;
-                }
-            }
-
-        }
-
-        event.setResult(count);
+        event.setResult(countItems(inventories, event.getPassedEntity(), prefab));
     }
 
     @ReceiveEvent //TODO:Fix this, entity doesn't actually have displayname
     public void onEvaluatePlayerName(EvaluateStringEvent event, EntityRef entity, ScenarioExpressionPlayerNameComponent component) {
-        Map<String, EntityRef> args = entity.getComponent(ScenarioArgumentContainerComponent.class).arguments;
-
-        //TODO: Replaced once evaluation of player is done
-        InfoTriggeringEntityComponent temp = event.getPassedEntity().getComponent(InfoTriggeringEntityComponent.class);
-        EntityRef clientInfo = temp.entity.getOwner().getComponent(ClientComponent.class).clientInfo;
-        DisplayNameComponent name = clientInfo.getComponent(DisplayNameComponent.class);
-
-        event.setResult(name.name);
+        event.setResult(getPlayerName(event.getPassedEntity()));
     }
 
     @ReceiveEvent
@@ -208,14 +206,7 @@ public class EvaluationSystem extends BaseComponentSystem {
         args.get("region").send(evalRegion);
         EntityRef region = evalRegion.getResult();
 
-        //TODO: Replaced once evaluation of player is done
-        EntityRef player = event.getPassedEntity().getComponent(InfoTriggeringEntityComponent.class)
-                .entity.getOwner().getComponent(ClientComponent.class).character;
-        RegionLocationComponent regionComp = region.getComponent(RegionLocationComponent.class);
-
-        Vector3f loc = player.getComponent(LocationComponent.class).getWorldPosition(new Vector3f());
-
-        event.setResult(regionComp.region.contains((int) loc.x, (int) loc.y, (int) loc.z));
+        event.setResult(isPlayerInRegion(event.getPassedEntity(), region));
     }
 
     @ReceiveEvent
@@ -251,10 +242,7 @@ public class EvaluationSystem extends BaseComponentSystem {
         args.get("region").send(evalRegion);
         EntityRef region = evalRegion.getResult();
 
-        RegionNameComponent name = region.getComponent(RegionNameComponent.class);
-        RegionColorComponent color = region.getComponent(RegionColorComponent.class);
-
-        event.setResult(FontColor.getColored(name.regionName, color.color));
+        event.setResult(getColoredRegionName(region));
     }
 
     @ReceiveEvent
@@ -270,17 +258,90 @@ public class EvaluationSystem extends BaseComponentSystem {
         int count = 0;
 
         if (player == ScenarioValuePlayerComponent.PlayerType.TRIGGERING_PLAYER) {
-            EntityRef playerEntity = event.getPassedEntity().getComponent(InfoTriggeringEntityComponent.class).entity;
-            InventoryComponent invent = playerEntity.getComponent(InventoryComponent.class);
-            for (EntityRef e : invent.itemSlots) {
-                if (e.exists() && e.hasComponent(BlockItemComponent.class)) {
-                    if (e.getComponent(BlockItemComponent.class).blockFamily.equals(blockFamily)) {
-                        count += e.getComponent(ItemComponent.class).stackCount;
-                    }
-                }
-            }
+            count = countBlocks(inventories, event.getPassedEntity(), blockFamily);
         }
 
         event.setResult(count);
     }
+
+    @ReceiveEvent
+    public void onEvaluateCountDestroyedBlock(EvaluateIntEvent event, EntityRef entity,
+                                              ScenarioExpressionDestroyedBlockCountComponent component) {
+        Map<String, EntityRef> args = entity.getComponent(ScenarioArgumentContainerComponent.class).arguments;
+
+        EvaluateBlockEvent evaluateBlockEvent = new EvaluateBlockEvent(event.getPassedEntity());
+        args.get("block").send(evaluateBlockEvent);
+        BlockFamily blockFamily = evaluateBlockEvent.getResult();
+
+        event.setResult(countDestroyedBlocks(event.getPassedEntity(), blockFamily));
+    }
+
+    /*
+     * The evaluations below are shared with EvaluationPlanSystem so that compiled plans and evaluation events give the same results
+     */
+
+    static BlockFamily getTriggeringBlock(EntityRef passed) {
+        InfoDestroyedBlockComponent destroyed = passed.getComponent(InfoDestroyedBlockComponent.class);
+        if (destroyed.blockFamily != null) {
+            return destroyed.blockFamily;
+        }
+        BlockComponent block = destroyed.destroyedBlock.getComponent(BlockComponent.class);
+        return block.getBlock().getBlockFamily();
+    }
+
+    /**
+     * @return the number of destroyed blocks of the family, for a single block destroyed event this is at most one
+     */
+    static int countDestroyedBlocks(EntityRef passed, BlockFamily blockFamily) {
+        InfoDestroyedBlockBatchComponent batch = passed.getComponent(InfoDestroyedBlockBatchComponent.class);
+        if (batch != null) {
+            return batch.countsByFamily.getOrDefault(blockFamily.getURI().toString(), 0);
+        }
+        if (passed.hasComponent(InfoDestroyedBlockComponent.class) && blockFamily.equals(getTriggeringBlock(passed))) {
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * @return the number of inventory slots of the triggering entity that hold an item of the prefab
+     */
+    static int countItems(InventorySummarySystem inventories, EntityRef passed, Prefab prefab) {
+        //TODO: Replaced once evaluation of player is done
+        EntityRef playerEntity = passed.getComponent(InfoTriggeringEntityComponent.class).entity;
+        return inventories.countItems(playerEntity, prefab);
+    }
+
+    /**
+     * @return the total stack size of the block items of the family in the inventory of the triggering entity
+     */
+    static int countBlocks(InventorySummarySystem inventories, EntityRef passed, BlockFamily blockFamily) {
+        EntityRef playerEntity = passed.getComponent(InfoTriggeringEntityComponent.class).entity;
+        return inventories.countBlocks(playerEntity, blockFamily);
+    }
+
+    static String getPlayerName(EntityRef passed) {
+        //TODO: Replaced once evaluation of player is done
+        InfoTriggeringEntityComponent temp = passed.getComponent(InfoTriggeringEntityComponent.class);
+        EntityRef clientInfo = temp.entity.getOwner().getComponent(ClientComponent.class).clientInfo;
+        DisplayNameComponent name = clientInfo.getComponent(DisplayNameComponent.class);
+        return name.name;
+    }
+
+    static boolean isPlayerInRegion(EntityRef passed, EntityRef region) {
+        //TODO: Replaced once evaluation of player is done
+        EntityRef player = passed.getComponent(InfoTriggeringEntityComponent.class)
+                .entity.getOwner().getComponent(ClientComponent.class).character;
+        RegionLocationComponent regionComp = region.getComponent(RegionLocationComponent.class);
+
+        Vector3f loc = player.getComponent(LocationComponent.class).getWorldPosition(new Vector3f());
+
+        return regionComp.region.contains((int) loc.x, (int) loc.y, (int) loc.z);
+    }
+
+    static String getColoredRegionName(EntityRef region) {
+        RegionNameComponent name = region.getComponent(RegionNameComponent.class);
+        RegionColorComponent color = region.getComponent(RegionColorComponent.class);
+        return FontColor.getColored(name.regionName, color.color);
+    }
 }
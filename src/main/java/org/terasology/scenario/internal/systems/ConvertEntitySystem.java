@@ -8,7 +8,11 @@ import org.terasology.engine.entitySystem.entity.EntityRef;
 import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
 import org.terasology.engine.entitySystem.systems.RegisterMode;
 import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.monitoring.Activity;
+import org.terasology.engine.monitoring.PerformanceMonitor;
 import org.terasology.engine.network.NetworkComponent;
+import org.terasology.engine.registry.In;
+import org.terasology.engine.registry.Share;
 import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
 import org.terasology.scenario.components.ScenarioArgumentContainerComponent;
 import org.terasology.scenario.components.actions.ScenarioSecondaryDamageAmountComponent;
@@ -17,6 +21,8 @@ import org.terasology.scenario.components.actions.ScenarioSecondaryGiveItemCompo
 import org.terasology.scenario.components.actions.ScenarioSecondaryHealAmountComponent;
 import org.terasology.scenario.components.actions.ScenarioSecondaryLogInfoComponent;
 import org.terasology.scenario.components.actions.ScenarioSecondarySendChatComponent;
+import org.terasology.scenario.components.actions.ScenarioSecondarySendPlayerChatComponent;
+import org.terasology.scenario.components.actions.ScenarioSecondarySendRegionChatComponent;
 import org.terasology.scenario.components.actions.ScenarioSecondaryTakeBlockComponent;
 import org.terasology.scenario.components.actions.ScenarioSecondaryTakeItemComponent;
 import org.terasology.scenario.components.actions.ScenarioSecondaryTeleportComponent;
@@ -30,6 +36,7 @@ import org.terasology.scenario.components.events.ScenarioSecondaryRespawnCompone
 import org.terasology.scenario.components.events.ScenarioSecondarySpawnComponent;
 import org.terasology.scenario.components.information.ScenarioExpressionBlockCountComponent;
 import org.terasology.scenario.components.information.ScenarioExpressionConcatStringComponent;
+import org.terasology.scenario.components.information.ScenarioExpressionDestroyedBlockCountComponent;
 import org.terasology.scenario.components.information.ScenarioExpressionItemCountComponent;
 import org.terasology.scenario.components.information.ScenarioExpressionPlayerNameComponent;
 import org.terasology.scenario.components.information.ScenarioExpressionRandomIntComponent;
@@ -44,6 +51,7 @@ import org.terasology.scenario.components.information.ScenarioValueStringCompone
 import org.terasology.scenario.components.information.ScenarioValueTriggeringBlockComponent;
 import org.terasology.scenario.components.information.ScenarioValueTriggeringRegionComponent;
 import org.terasology.scenario.internal.events.ConvertScenarioEntityEvent;
+import org.terasology.scenario.internal.utilities.LogicEntityCodec;
 
 import java.util.Map;
 
@@ -52,6 +60,7 @@ import java.util.Map;
  * the same order of the list(Makes sure that the list always goes down in in depth, not a skip of branches that would result in wanting to
  * satisfy an entity that doesn't yet exist
  */
+@Share(ConvertEntitySystem.class)
 @RegisterSystem(RegisterMode.CLIENT)
 public class ConvertEntitySystem extends BaseComponentSystem {
 
@@ -67,8 +76,26 @@ public class ConvertEntitySystem extends BaseComponentSystem {
     private static final String PREFAB_MARKER = "[PREFAB]";
     private static final String VALUE_MARKER = "[VALUE]";
 
+    @In
+    private LogicPrefabTableSystem logicPrefabTable;
+
     private final Logger logger = LoggerFactory.getLogger(ConvertEntitySystem.class);
 
+    /**
+     * Creates the construction strings of the entity and encodes them with {@link LogicEntityCodec} and the shared
+     * {@link LogicPrefabTableSystem prefab table}, for sending them to the server
+     *
+     * @param entity the root of the logic entity tree to convert
+     * @return the encoded construction strings of the entity
+     */
+    public byte[] encode(EntityRef entity) {
+        try (Activity ignored = PerformanceMonitor.startActivity("Scenario: Logic Serialization")) {
+            ConvertScenarioEntityEvent convertEvent = new ConvertScenarioEntityEvent();
+            entity.send(convertEvent);
+            return LogicEntityCodec.encode(convertEvent.getOutputList(), logicPrefabTable.getTable());
+        }
+    }
+
     /**
      * Anything that has an argument container and is not a value would use this serialization
      *
@@ -97,6 +124,16 @@ public class ConvertEntitySystem extends BaseComponentSystem {
         defaultSerialize(event, entity);
     }
 
+    @ReceiveEvent
+    public void onConvertEntityEvent(ConvertScenarioEntityEvent event, EntityRef entity, ScenarioSecondarySendPlayerChatComponent component) {
+        defaultSerialize(event, entity);
+    }
+
+    @ReceiveEvent
+    public void onConvertEntityEvent(ConvertScenarioEntityEvent event, EntityRef entity, ScenarioSecondarySendRegionChatComponent component) {
+        defaultSerialize(event, entity);
+    }
+
 
     @ReceiveEvent
     public void onConvertEntityEvent(ConvertScenarioEntityEvent event, EntityRef entity, ScenarioValueTriggeringBlockComponent component) {
@@ -253,4 +290,10 @@ public class ConvertEntitySystem extends BaseComponentSystem {
     public void onConvertEntityEvent(ConvertScenarioEntityEvent event, EntityRef entity, ScenarioExpressionBlockCountComponent component) {
         defaultSerialize(event, entity);
     }
+
+    @ReceiveEvent
+    public void onConvertEntityEvent(ConvertScenarioEntityEvent event, EntityRef entity,
+                                     ScenarioExpressionDestroyedBlockCountComponent component) {
+        defaultSerialize(event, entity);
+    }
 }
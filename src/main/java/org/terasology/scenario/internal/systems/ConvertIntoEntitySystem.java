@@ -10,8 +10,10 @@ import org.terasology.engine.entitySystem.prefab.Prefab;
 import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
 import org.terasology.engine.entitySystem.systems.RegisterMode;
 import org.terasology.engine.entitySystem.systems.RegisterSystem;
-import org.terasology.engine.network.NetworkComponent;
+import org.terasology.engine.monitoring.Activity;
+import org.terasology.engine.monitoring.PerformanceMonitor;
 import org.terasology.engine.registry.In;
+import org.terasology.engine.registry.Share;
 import org.terasology.engine.world.block.BlockManager;
 import org.terasology.gestalt.assets.management.AssetManager;
 import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
@@ -24,18 +26,21 @@ import org.terasology.scenario.components.information.ScenarioValueItemPrefabUri
 import org.terasology.scenario.components.information.ScenarioValuePlayerComponent;
 import org.terasology.scenario.components.information.ScenarioValueRegionComponent;
 import org.terasology.scenario.components.information.ScenarioValueStringComponent;
-import org.terasology.scenario.components.regions.RegionNameComponent;
 import org.terasology.scenario.internal.events.ConvertIntoEntityConstantEvent;
 import org.terasology.scenario.internal.events.ConvertIntoEntityEvent;
 import org.terasology.scenario.internal.utilities.ArgumentParser;
+import org.terasology.scenario.internal.utilities.LogicEntityCodec;
+import org.terasology.scenario.internal.utilities.LogicEntityTrees;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 /**
  * System that takes a list of strings generated by the ConvertEntitySystem in order to create an entity based on the strings
  */
+@Share(ConvertIntoEntitySystem.class)
 @RegisterSystem(RegisterMode.AUTHORITY)
 public class ConvertIntoEntitySystem extends BaseComponentSystem {
 
@@ -47,7 +52,13 @@ public class ConvertIntoEntitySystem extends BaseComponentSystem {
      */
 
 
-    private static final String PREFAB_MARKER = "PREFAB";
+    private static final String PREFAB_MARKER = "[PREFAB]";
+    private static final String VALUE_MARKER = "[VALUE]";
+
+    public static final String RECONSTRUCTION_TIME_METRIC = "conversion.reconstructionNanos";
+    public static final String ENCODED_BYTES_METRIC = "conversion.encodedBytes";
+    public static final String STRING_CHARS_METRIC = "conversion.constructionStringChars";
+    public static final String REJECTED_METRIC = "conversion.rejected";
 
     @In
     EntityManager entityManager;
@@ -61,60 +72,181 @@ public class ConvertIntoEntitySystem extends BaseComponentSystem {
     @In
     ArgumentParser argumentParser;
 
-    private final Logger logger = LoggerFactory.getLogger(ConvertIntoEntitySystem.class);
+    @In
+    ScenarioMetricsSystem metrics;
+
+    @In
+    RegionLookupSystem regionLookup;
+
+    @In
+    LogicPrefabTableSystem logicPrefabTable;
 
-    private final Pattern patternMain = Pattern.compile("\\[(.*?)\\]");
-    private final Pattern keyPattern = Pattern.compile("\\{(.*?)\\}");
+    private final Logger logger = LoggerFactory.getLogger(ConvertIntoEntitySystem.class);
 
 
     @ReceiveEvent
     public void onConvertIntoEntityEvent(ConvertIntoEntityEvent event, EntityRef entity, ScenarioHubToolUpdateComponent component) {
-        List<String> constructions = event.getConstructionStrings();
-        //Finding the main prefab of the entity
-        Matcher matcher = patternMain.matcher(constructions.get(0));
-        matcher.find();
-        String prefabName = constructions.get(0).substring(matcher.end());
-        EntityRef starterEntity = entityManager.create(assetManager.getAsset(prefabName, Prefab.class).get());
-        argumentParser.parseDefaults(starterEntity);
-        constructions.remove(0);
-
-
-        for (String s : constructions) {
-            Matcher keyMatcher = keyPattern.matcher(s);
-            EntityRef previousEntity = starterEntity;
-            EntityRef currentEntity = starterEntity;
-            String lastKey = "";
-            int lastIndex = 0;
-            while (keyMatcher.find()) {
-                String key = keyMatcher.group(1);
-                lastKey = key;
-                lastIndex = keyMatcher.end();
-                previousEntity = currentEntity;
-                currentEntity = currentEntity.getComponent(ScenarioArgumentContainerComponent.class).arguments.get(key);
+        try (Activity ignored = PerformanceMonitor.startActivity("Scenario: Logic Reconstruction")) {
+            long start = System.nanoTime();
+            TreeBuilder builder = new TreeBuilder();
+            try {
+                if (event.getEncodedConstruction() != null) {
+                    LogicEntityCodec.decode(event.getEncodedConstruction(), logicPrefabTable.getTable(), builder);
+                    metrics.add(ENCODED_BYTES_METRIC, event.getEncodedConstruction().length);
+                    metrics.add(STRING_CHARS_METRIC, builder.stringChars);
+                } else {
+                    LogicEntityCodec.parse(event.getConstructionStrings(), builder);
+                }
+            } catch (IllegalArgumentException e) {
+                logger.warn("Rejected malformed logic entity from {}: {}", entity, e.getMessage());
+                builder.abort();
+                metrics.increment(REJECTED_METRIC);
+                return; //No return entity, the edit is rejected
+            }
+            event.setReturnEntity(builder.finish());
+            metrics.addDuration(RECONSTRUCTION_TIME_METRIC, start);
+        }
+    }
+
+    /**
+     * @return a builder that creates a logic entity from construction lines passed to it in depth first order, for creating logic entities
+     * from other sources than construction strings
+     */
+    public TreeBuilder newTreeBuilder() {
+        return new TreeBuilder();
+    }
+
+    /**
+     * Builds the entity tree in a single pass over the construction lines, keeping the entities along the path of the current line on a
+     * stack. The argument containers that get new children are only saved once at the end
+     * <p>
+     * Lines that don't fit the tree built so far are rejected with an {@link IllegalArgumentException} before any entity is created for
+     * them, the entities created up to then can be destroyed with {@link #abort()}
+     */
+    public class TreeBuilder implements LogicEntityCodec.Visitor {
+        private final List<EntityRef> path = new ArrayList<>();
+        private final Set<EntityRef> changedContainers = new LinkedHashSet<>();
+
+        /**
+         * Length of the key path of each entity on the stack in the string form, to compare the size of the two forms
+         */
+        private final List<Integer> pathChars = new ArrayList<>();
+        private long stringChars;
+
+        private EntityRef root = EntityRef.NULL;
+
+        @Override
+        public void visitPrefab(int depth, String key, String prefab) {
+            Prefab prefabAsset = assetManager.getAsset(prefab, Prefab.class)
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown prefab " + prefab));
+            if (depth == 0) {
+                if (root.exists()) {
+                    throw new IllegalArgumentException("Construction strings contain more than one root");
+                }
+                root = entityManager.create(prefabAsset);
+                argumentParser.parseDefaults(root);
+                push(depth, key, root, PREFAB_MARKER.length() + prefab.length());
+                return;
+            }
+            EntityRef parent = moveTo(depth);
+            ScenarioArgumentContainerComponent args = getArguments(parent, key);
+            EntityRef newEntity = entityManager.create(prefabAsset);
+            argumentParser.parseDefaults(newEntity);
+            LogicEntityTrees.destroyTree(args.arguments.put(key, newEntity)); //Default argument created by parseDefaults
+            changedContainers.add(parent);
+            push(depth, key, newEntity, PREFAB_MARKER.length() + prefab.length());
+        }
+
+        @Override
+        public void visitValue(int depth, String key, String value) {
+            //Type doesn't actually matter because the entity will be set up to a constant value at the end and therefore
+            //Will be able to be detected by component
+            if (depth == 0) {
+                throw new IllegalArgumentException("Construction strings don't start with a prefab");
+            }
+            EntityRef parent = moveTo(depth);
+            EntityRef currentEntity = getArguments(parent, key).arguments.get(key);
+            if (currentEntity == null || !currentEntity.exists()) {
+                throw new IllegalArgumentException("Argument " + key + " has no entity to set a value on");
             }
-            // At this point previousEntity is the second to last entity, current entity is the furthest depth entity
-            // lastKey is the key from the previous entity to the current entity and lastIndex is the index in the string
-            // that begins the last "segment" that isn't keyed(either a prefab or a value)
-
-            Matcher matcherLast = patternMain.matcher(s);
-            matcherLast.find(lastIndex);
-            if (matcherLast.group(1).equals(PREFAB_MARKER)) {
-                String subPrefab = s.substring(matcherLast.end());
-                EntityRef newEntity = entityManager.create(assetManager.getAsset(subPrefab, Prefab.class).get());
-                argumentParser.parseDefaults(newEntity);
-                previousEntity.getComponent(ScenarioArgumentContainerComponent.class).arguments.put(lastKey, newEntity);
-                previousEntity.saveComponent(previousEntity.getComponent(ScenarioArgumentContainerComponent.class));
-            } else {
-                //Type doesn't actually matter because the entity will be set up to a constant value at the end and therefore
-                //Will be able to be detected by component
-                String value = s.substring(matcherLast.end());
-                ConvertIntoEntityConstantEvent constEvent = new ConvertIntoEntityConstantEvent(value);
-                currentEntity.send(constEvent);
-                previousEntity.saveComponent(previousEntity.getComponent(ScenarioArgumentContainerComponent.class));
+            checkValue(currentEntity, key, value);
+            currentEntity.send(new ConvertIntoEntityConstantEvent(value));
+            push(depth, key, currentEntity, VALUE_MARKER.length() + value.length());
+        }
+
+        /**
+         * Destroys all entities created so far, for when the construction lines turned out to be malformed
+         */
+        public void abort() {
+            LogicEntityTrees.destroyTree(root);
+            root = EntityRef.NULL;
+            path.clear();
+            pathChars.clear();
+            changedContainers.clear();
+        }
+
+        /**
+         * Checks that the constant handlers below can parse the value, as an exception in an event handler would only be logged and leave
+         * the constant at its default
+         */
+        private void checkValue(EntityRef entity, String key, String value) {
+            try {
+                if (entity.hasComponent(ScenarioValueIntegerComponent.class)) {
+                    Integer.parseInt(value);
+                } else if (entity.hasComponent(ScenarioValuePlayerComponent.class)) {
+                    ScenarioValuePlayerComponent.PlayerType.valueOf(value);
+                } else if (entity.hasComponent(ScenarioValueComparatorComponent.class)) {
+                    ScenarioValueComparatorComponent.Comparison.valueOf(value);
+                } else if (entity.hasComponent(ScenarioValueRegionComponent.class)) {
+                    Integer.parseInt(value.startsWith("x") ? value.substring(1) : value);
+                }
+            } catch (IllegalArgumentException e) { //Includes NumberFormatException
+                throw new IllegalArgumentException("Invalid value " + value + " for argument " + key, e);
             }
         }
 
-        event.setReturnEntity(starterEntity);
+        /**
+         * Cuts the stack down to the parent of an entity at the depth
+         *
+         * @return the parent
+         */
+        private EntityRef moveTo(int depth) {
+            if (depth < 1 || depth > path.size()) {
+                throw new IllegalArgumentException("Construction line at depth " + depth + " has no parent");
+            }
+            while (path.size() > depth) {
+                path.remove(path.size() - 1);
+                pathChars.remove(pathChars.size() - 1);
+            }
+            return path.get(depth - 1);
+        }
+
+        private ScenarioArgumentContainerComponent getArguments(EntityRef parent, String key) {
+            ScenarioArgumentContainerComponent args = parent.getComponent(ScenarioArgumentContainerComponent.class);
+            if (args == null || args.arguments == null || !args.arguments.containsKey(key)) {
+                throw new IllegalArgumentException(parent.getParentPrefab().getName() + " has no argument " + key);
+            }
+            return args;
+        }
+
+        private void push(int depth, String key, EntityRef entity, int markerChars) {
+            int keyChars = depth == 0 ? 0 : pathChars.get(depth - 1) + key.length() + 2;
+            path.add(entity);
+            pathChars.add(keyChars);
+            stringChars += keyChars + markerChars;
+        }
+
+        /**
+         * @return the root of the built entity tree
+         */
+        public EntityRef finish() {
+            for (EntityRef container : changedContainers) {
+                if (container.exists()) { //Could have been replaced by a later line with the same path
+                    container.saveComponent(container.getComponent(ScenarioArgumentContainerComponent.class));
+                }
+            }
+            return path.isEmpty() ? EntityRef.NULL : path.get(0);
+        }
     }
 
     @ReceiveEvent
@@ -166,10 +298,9 @@ public class ConvertIntoEntitySystem extends BaseComponentSystem {
         if (event.getValue().charAt(0) == 'x') { //No network component
             component.regionEntity = entityManager.getEntity(Integer.parseInt(event.getValue().substring(1)));
         } else {
-            for (EntityRef e : entityManager.getEntitiesWith(RegionNameComponent.class)) {
-                if (e.getComponent(NetworkComponent.class).getNetworkId() == Integer.parseInt(event.getValue())) {
-                    component.regionEntity = e;
-                }
+            EntityRef region = regionLookup.getRegion(Integer.parseInt(event.getValue()));
+            if (region.exists()) {
+                component.regionEntity = region;
             }
         }
         entity.saveComponent(component);
@@ -33,7 +33,9 @@ import org.terasology.scenario.internal.events.LogicTreeAddTriggerEvent;
 import org.terasology.scenario.internal.events.LogicTreeDeleteEvent;
 import org.terasology.scenario.internal.events.LogicTreeMoveEntityEvent;
 import org.terasology.scenario.internal.events.ReplaceEntityFromConstructionStringsEvent;
+import org.terasology.scenario.internal.events.ReplaceEntityFromEncodedConstructionEvent;
 import org.terasology.scenario.internal.utilities.ArgumentParser;
+import org.terasology.scenario.internal.utilities.LogicEntityTrees;
 
 import java.util.List;
 import java.util.Set;
@@ -211,6 +213,8 @@ public class EntityTreeSystem extends BaseComponentSystem {
      * Checks if the deleted entity is an event or action and then removes and saves the correct entities. Event just needs to update
      * scenario root, action needs to update both scenario and the event it is attached to Updates the hub tool's screen if it was passed
      * with the event.
+     * <p>
+     * The deleted entity is destroyed together with all of the argument entities below it
      */
     @ReceiveEvent
     public void onLogicTreeDeleteEvent(LogicTreeDeleteEvent event, EntityRef entity, ScenarioHubToolUpdateComponent component) {
@@ -219,23 +223,23 @@ public class EntityTreeSystem extends BaseComponentSystem {
                 TriggerEventListComponent events = event.getDeleteFromEntity().getComponent(TriggerEventListComponent.class);
                 events.events.remove(event.getDeleteEntity());
                 event.getDeleteFromEntity().saveComponent(events);
-                event.getDeleteEntity().destroy();
+                LogicEntityTrees.destroyTree(event.getDeleteEntity());
             } else if (event.getDeleteEntity().hasComponent(ScenarioIndicatorConditionalComponent.class)) { //Condition
                 TriggerConditionListComponent conds = event.getDeleteFromEntity().getComponent(TriggerConditionListComponent.class);
                 conds.conditions.remove(event.getDeleteEntity());
                 event.getDeleteFromEntity().saveComponent(conds);
-                event.getDeleteEntity().destroy();
+                LogicEntityTrees.destroyTree(event.getDeleteEntity());
             } else if (event.getDeleteEntity().hasComponent(ScenarioIndicatorActionComponent.class)) { //Action
                 TriggerActionListComponent actions = event.getDeleteFromEntity().getComponent(TriggerActionListComponent.class);
                 actions.actions.remove(event.getDeleteEntity());
                 event.getDeleteFromEntity().saveComponent(actions);
-                event.getDeleteEntity().destroy();
+                LogicEntityTrees.destroyTree(event.getDeleteEntity());
             }
             entity.saveComponent(component);
         } else { //Must be a trigger, not an event/action/conditional
             scenarioEntity.getComponent(ScenarioComponent.class).triggerEntities.remove(event.getDeleteEntity());
             scenarioEntity.saveComponent(scenarioEntity.getComponent(ScenarioComponent.class));
-            event.getDeleteEntity().destroy();
+            LogicEntityTrees.destroyTrigger(event.getDeleteEntity());
         }
 
         for (EntityRef e : entityManager.getEntitiesWith(ScenarioHubToolUpdateComponent.class)) {
@@ -309,42 +313,64 @@ public class EntityTreeSystem extends BaseComponentSystem {
     /**
      * Takes the serialized list from a client and constructs it back into an entity and replaces the original entity in the logic tree.
      * Serialised using ConvertEntitySystem and converts back into entity using ConvertIntoEntitySystem
+     * <p>
+     * The replaced entity is destroyed together with all of the argument entities below it, the new entity is built from new entities only
      */
     @ReceiveEvent
     public void onReplaceEntityWithPrefabEvent(ReplaceEntityFromConstructionStringsEvent event,
                                                EntityRef entity,
                                                ScenarioHubToolUpdateComponent component) {
-        ConvertIntoEntityEvent conversionEvent = new ConvertIntoEntityEvent(event.getConversions());
-        entity.send(conversionEvent);
+        replaceEntity(entity, event.getReplaced(), new ConvertIntoEntityEvent(event.getConversions()));
+    }
+
+    /**
+     * Same as {@link #onReplaceEntityWithPrefabEvent(ReplaceEntityFromConstructionStringsEvent, EntityRef, ScenarioHubToolUpdateComponent)}
+     * for construction strings that were encoded by the client
+     */
+    @ReceiveEvent
+    public void onReplaceEntityWithEncodedEvent(ReplaceEntityFromEncodedConstructionEvent event,
+                                                EntityRef entity,
+                                                ScenarioHubToolUpdateComponent component) {
+        replaceEntity(entity, event.getReplaced(), new ConvertIntoEntityEvent(event.getEncodedConstruction()));
+    }
+
+    private void replaceEntity(EntityRef hubTool, EntityRef replaced, ConvertIntoEntityEvent conversionEvent) {
+        hubTool.send(conversionEvent);
         EntityRef newEntity = conversionEvent.getReturnEntity();
-        EntityRef owningTrigger = event.getReplaced().getOwner();
-        if (event.getReplaced().hasComponent(ScenarioIndicatorActionComponent.class)) {
+        if (newEntity == null || !newEntity.exists()) { //Malformed, the replaced entity stays and the editor is reset to it
+            for (EntityRef e : entityManager.getEntitiesWith(ScenarioHubToolUpdateComponent.class)) {
+                e.send(new HubtoolRewriteLogicEvent());
+            }
+            return;
+        }
+        EntityRef owningTrigger = replaced.getOwner();
+        if (replaced.hasComponent(ScenarioIndicatorActionComponent.class)) {
             TriggerActionListComponent actions = owningTrigger.getComponent(TriggerActionListComponent.class);
             newEntity.setOwner(owningTrigger);
-            int index = actions.actions.indexOf(event.getReplaced());
-            actions.actions.remove(event.getReplaced());
+            int index = actions.actions.indexOf(replaced);
+            actions.actions.remove(replaced);
             actions.actions.add(index, newEntity);
             owningTrigger.saveComponent(actions);
             scenarioEntity.saveComponent(scenarioEntity.getComponent(ScenarioComponent.class));
-        } else if (event.getReplaced().hasComponent(ScenarioIndicatorEventComponent.class)) {
+        } else if (replaced.hasComponent(ScenarioIndicatorEventComponent.class)) {
             TriggerEventListComponent events = owningTrigger.getComponent(TriggerEventListComponent.class);
             newEntity.setOwner(owningTrigger);
-            int index = events.events.indexOf(event.getReplaced());
-            events.events.remove(event.getReplaced());
+            int index = events.events.indexOf(replaced);
+            events.events.remove(replaced);
             events.events.add(index, newEntity);
             owningTrigger.saveComponent(events);
             scenarioEntity.saveComponent(scenarioEntity.getComponent(ScenarioComponent.class));
-        } else if (event.getReplaced().hasComponent(ScenarioIndicatorConditionalComponent.class)) {
+        } else if (replaced.hasComponent(ScenarioIndicatorConditionalComponent.class)) {
             TriggerConditionListComponent conds = owningTrigger.getComponent(TriggerConditionListComponent.class);
             newEntity.setOwner(owningTrigger);
-            int index = conds.conditions.indexOf(event.getReplaced());
-            conds.conditions.remove(event.getReplaced());
+            int index = conds.conditions.indexOf(replaced);
+            conds.conditions.remove(replaced);
             conds.conditions.add(index, newEntity);
             owningTrigger.saveComponent(conds);
             scenarioEntity.saveComponent(scenarioEntity.getComponent(ScenarioComponent.class));
         }
 
-        event.getReplaced().destroy();
+        LogicEntityTrees.destroyTree(replaced);
 
         for (EntityRef e : entityManager.getEntitiesWith(ScenarioHubToolUpdateComponent.class)) {
             e.send(new HubtoolRewriteLogicEvent());
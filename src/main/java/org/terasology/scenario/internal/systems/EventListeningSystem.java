@@ -4,7 +4,6 @@ package org.terasology.scenario.internal.systems;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.terasology.engine.entitySystem.entity.EntityManager;
 import org.terasology.engine.entitySystem.entity.EntityRef;
 import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
 import org.terasology.engine.entitySystem.systems.RegisterMode;
@@ -12,9 +11,11 @@ import org.terasology.engine.entitySystem.systems.RegisterSystem;
 import org.terasology.engine.logic.health.DoDestroyEvent;
 import org.terasology.engine.logic.players.event.OnPlayerRespawnedEvent;
 import org.terasology.engine.logic.players.event.OnPlayerSpawnedEvent;
+import org.terasology.engine.network.ClientComponent;
 import org.terasology.engine.registry.In;
+import org.terasology.engine.world.block.BlockComponent;
 import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
-import org.terasology.scenario.components.ScenarioComponent;
+import org.terasology.scenario.components.events.ScenarioSecondaryBlockDestroyComponent;
 import org.terasology.scenario.internal.events.scenarioEvents.DoDestroyScenarioEvent;
 import org.terasology.scenario.internal.events.scenarioEvents.PlayerRespawnScenarioEvent;
 import org.terasology.scenario.internal.events.scenarioEvents.PlayerSpawnScenarioEvent;
@@ -25,41 +26,76 @@ import org.terasology.scenario.internal.events.scenarioEvents.PlayerSpawnScenari
  */
 @RegisterSystem(RegisterMode.AUTHORITY)
 public class EventListeningSystem extends BaseComponentSystem {
+    public static final String FILTERED_DESTROY_METRIC = "blockDestroy.filtered";
+    public static final String FORWARDED_DESTROY_METRIC = "blockDestroy.forwarded";
+
+    /**
+     * Limit for following the owners of an instigator, in case of an ownership cycle
+     */
+    private static final int MAX_OWNER_DEPTH = 8;
+
+    @In
+    private ScenarioRootRegistry scenarioRoot;
+
+    @In
+    private TriggerIndexSystem triggerIndex;
+
     @In
-    private EntityManager entityManager;
+    private ScenarioMetricsSystem metrics;
 
     private final Logger logger = LoggerFactory.getLogger(EventListeningSystem.class);
 
     @ReceiveEvent //Respawn (On death or on rejoin a server)
     public void onPlayerRejoinEvent(OnPlayerRespawnedEvent event, EntityRef entity) {
-        if (entityManager.getEntitiesWith(ScenarioComponent.class).iterator().hasNext()) {
-            EntityRef scenario = entityManager.getEntitiesWith(ScenarioComponent.class).iterator().next();
-            if (scenario == null) {
-                return;
-            }
+        EntityRef scenario = scenarioRoot.getScenario();
+        if (scenario.exists()) {
             scenario.send(new PlayerRespawnScenarioEvent(entity));
         }
     }
 
     @ReceiveEvent //Spawn, initial spawn on joining a server
     public void onPlayerSpawnEvent(OnPlayerSpawnedEvent event, EntityRef entity) {
-        if (entityManager.getEntitiesWith(ScenarioComponent.class).iterator().hasNext()) {
-            EntityRef scenario = entityManager.getEntitiesWith(ScenarioComponent.class).iterator().next();
-            if (scenario == null) {
-                return;
-            }
+        EntityRef scenario = scenarioRoot.getScenario();
+        if (scenario.exists()) {
             scenario.send(new PlayerSpawnScenarioEvent(entity));
         }
     }
 
+    /**
+     * Only destruction of blocks by players is forwarded, and only while a trigger of the scenario listens for it, everything else is
+     * dropped before any scenario event is created. Blocks destroyed by something a player owns, like a projectile, count as destroyed by
+     * that player, whose character is passed to the scenario as the instigator
+     */
     @ReceiveEvent //On block detruction
-    public void onDoDestroyEvent(DoDestroyEvent event, EntityRef entity) {
-        if (entityManager.getEntitiesWith(ScenarioComponent.class).iterator().hasNext()) {
-            EntityRef scenario = entityManager.getEntitiesWith(ScenarioComponent.class).iterator().next();
-            if (scenario == null) {
-                return;
+    public void onDoDestroyEvent(DoDestroyEvent event, EntityRef entity, BlockComponent blockComponent) {
+        EntityRef scenario = scenarioRoot.getScenario();
+        if (!scenario.exists()) {
+            return;
+        }
+        EntityRef player = findPlayer(event.getInstigator());
+        if (!player.exists() || !triggerIndex.hasEventEntities(ScenarioSecondaryBlockDestroyComponent.class)) {
+            metrics.increment(FILTERED_DESTROY_METRIC);
+            return;
+        }
+        metrics.increment(FORWARDED_DESTROY_METRIC);
+        scenario.send(new DoDestroyScenarioEvent(player, event.getDirectCause(), event.getDamageType(), entity));
+    }
+
+    /**
+     * Player characters are owned by the entity of their client, anything else the player owns is owned by the character or by something
+     * the character owns, so the owner chain of the instigator is followed up to the character
+     *
+     * @return the character of the player that the instigator belongs to, or {@link EntityRef#NULL} if it doesn't belong to a player
+     */
+    private EntityRef findPlayer(EntityRef instigator) {
+        EntityRef current = instigator;
+        for (int i = 0; i < MAX_OWNER_DEPTH && current.exists(); i++) {
+            EntityRef owner = current.getOwner();
+            if (owner.hasComponent(ClientComponent.class)) {
+                return current;
             }
-            scenario.send(new DoDestroyScenarioEvent(event.getInstigator(), event.getDirectCause(), event.getDamageType(), entity));
+            current = owner;
         }
+        return EntityRef.NULL;
     }
 }
@@ -0,0 +1,232 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.scenario.internal.systems;
+
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.BeforeDeactivateComponent;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnChangedComponent;
+import org.terasology.engine.entitySystem.prefab.Prefab;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.logic.inventory.ItemComponent;
+import org.terasology.engine.registry.In;
+import org.terasology.engine.registry.Share;
+import org.terasology.engine.world.block.family.BlockFamily;
+import org.terasology.engine.world.block.items.BlockItemComponent;
+import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
+import org.terasology.module.inventory.components.InventoryComponent;
+import org.terasology.module.inventory.events.InventorySlotChangedEvent;
+import org.terasology.module.inventory.events.InventorySlotStackSizeChangedEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps a summary of the inventories that scenario expressions and actions look at, so that counting items or blocks doesn't have to scan
+ * every slot of the inventory each time
+ * <p>
+ * A summary is built from the {@link InventoryComponent} the first time an inventory is looked at and is then updated slot by slot from
+ * the inventory change events, until the inventory is deactivated. Changes that don't go through those events, like a replaced or resized
+ * inventory component or a stack count saved directly on an item, are picked up from the changes of the components themselves
+ */
+@Share(InventorySummarySystem.class)
+@RegisterSystem(RegisterMode.AUTHORITY)
+public class InventorySummarySystem extends BaseComponentSystem {
+    public static final String BUILT_METRIC = "inventory.summariesBuilt";
+    public static final String SUMMARIES_METRIC = "inventory.summaries";
+
+    @In
+    private ScenarioMetricsSystem metrics;
+
+    private final Map<EntityRef, InventorySummary> summaries = new HashMap<>();
+
+    /**
+     * Slots of the summaries that each item is in, so that a changed item only updates the slots that hold it
+     */
+    private final Map<EntityRef, List<SummarySlot>> itemLocations = new HashMap<>();
+
+    /**
+     * @return the number of slots of the inventory that hold an item of the prefab
+     */
+    public int countItems(EntityRef inventory, Prefab prefab) {
+        InventorySummary summary = getSummary(inventory);
+        return summary == null ? 0 : summary.prefabSlots.getOrDefault(prefab, 0);
+    }
+
+    /**
+     * @return the total stack size of the block items of the family in the inventory
+     */
+    public int countBlocks(EntityRef inventory, BlockFamily blockFamily) {
+        InventorySummary summary = getSummary(inventory);
+        return summary == null ? 0 : summary.blockCounts.getOrDefault(blockFamily, 0);
+    }
+
+    @ReceiveEvent
+    public void onInventorySlotChanged(InventorySlotChangedEvent event, EntityRef entity, InventoryComponent inventory) {
+        InventorySummary summary = summaries.get(entity);
+        if (summary != null) {
+            summary.setSlot(event.getSlot(), event.getNewItem());
+        }
+    }
+
+    @ReceiveEvent
+    public void onInventorySlotStackSizeChanged(InventorySlotStackSizeChangedEvent event, EntityRef entity, InventoryComponent inventory) {
+        InventorySummary summary = summaries.get(entity);
+        if (summary != null) {
+            summary.setStackSize(event.getSlot(), event.getNewSize());
+        }
+    }
+
+    @ReceiveEvent
+    public void onInventoryChanged(OnChangedComponent event, EntityRef entity, InventoryComponent inventory) {
+        InventorySummary summary = summaries.get(entity);
+        if (summary != null) {
+            summary.sync(inventory.itemSlots);
+        }
+    }
+
+    @ReceiveEvent
+    public void onItemChanged(OnChangedComponent event, EntityRef entity, ItemComponent item) {
+        List<SummarySlot> slots = itemLocations.get(entity);
+        if (slots != null) {
+            //Copied as updating a slot removes it from the list and adds it again
+            for (SummarySlot summarySlot : new ArrayList<>(slots)) {
+                summarySlot.summary.setSlot(summarySlot.slot, entity);
+            }
+        }
+    }
+
+    @ReceiveEvent
+    public void onInventoryDeactivated(BeforeDeactivateComponent event, EntityRef entity, InventoryComponent inventory) {
+        InventorySummary summary = summaries.remove(entity);
+        if (summary != null) {
+            summary.clear();
+            metrics.setGauge(SUMMARIES_METRIC, summaries.size());
+        }
+    }
+
+    private InventorySummary getSummary(EntityRef inventory) {
+        InventorySummary summary = summaries.get(inventory);
+        if (summary == null) {
+            InventoryComponent component = inventory.getComponent(InventoryComponent.class);
+            if (component == null) {
+                return null;
+            }
+            summary = new InventorySummary(component.itemSlots);
+            summaries.put(inventory, summary);
+            metrics.increment(BUILT_METRIC);
+            metrics.setGauge(SUMMARIES_METRIC, summaries.size());
+        }
+        return summary;
+    }
+
+    /**
+     * Counts of an inventory by item prefab and block family, together with what each slot contributed to them so that a slot can be
+     * updated without looking at the item that was previously in it, which might already be destroyed
+     */
+    private class InventorySummary {
+        private final Map<Prefab, Integer> prefabSlots = new HashMap<>();
+        private final Map<BlockFamily, Integer> blockCounts = new HashMap<>();
+
+        private final Map<Integer, Prefab> slotPrefabs = new HashMap<>();
+        private final Map<Integer, BlockFamily> slotBlocks = new HashMap<>();
+        private final Map<Integer, Integer> slotStackSizes = new HashMap<>();
+        private final List<EntityRef> slotItems = new ArrayList<>();
+
+        InventorySummary(List<EntityRef> itemSlots) {
+            sync(itemSlots);
+        }
+
+        /**
+         * Updates the slots whose item differs from the inventory and drops the slots the inventory doesn't have anymore
+         */
+        void sync(List<EntityRef> itemSlots) {
+            for (int slot = 0; slot < Math.max(itemSlots.size(), slotItems.size()); slot++) {
+                EntityRef item = slot < itemSlots.size() ? itemSlots.get(slot) : EntityRef.NULL;
+                if (slot >= slotItems.size() || !slotItems.get(slot).equals(item)) {
+                    setSlot(slot, item);
+                }
+            }
+            while (slotItems.size() > itemSlots.size()) {
+                slotItems.remove(slotItems.size() - 1);
+            }
+        }
+
+        void setSlot(int slot, EntityRef item) {
+            clearSlot(slot);
+            while (slotItems.size() <= slot) {
+                slotItems.add(EntityRef.NULL);
+            }
+            slotItems.set(slot, item);
+            if (!item.exists()) {
+                return;
+            }
+            itemLocations.computeIfAbsent(item, k -> new ArrayList<>()).add(new SummarySlot(this, slot));
+            Prefab prefab = item.getParentPrefab();
+            if (prefab != null && prefab.exists()) {
+                slotPrefabs.put(slot, prefab);
+                prefabSlots.merge(prefab, 1, Integer::sum);
+            }
+            BlockItemComponent blockItem = item.getComponent(BlockItemComponent.class);
+            ItemComponent itemComponent = item.getComponent(ItemComponent.class);
+            if (blockItem != null && itemComponent != null) {
+                slotBlocks.put(slot, blockItem.blockFamily);
+                slotStackSizes.put(slot, (int) itemComponent.stackCount);
+                blockCounts.merge(blockItem.blockFamily, (int) itemComponent.stackCount, Integer::sum);
+            }
+        }
+
+        void setStackSize(int slot, int stackSize) {
+            BlockFamily blockFamily = slotBlocks.get(slot);
+            if (blockFamily != null) {
+                int previous = slotStackSizes.put(slot, stackSize);
+                blockCounts.merge(blockFamily, stackSize - previous, Integer::sum);
+            }
+        }
+
+        /**
+         * Removes all slots from the lookup of the slots of the items
+         */
+        void clear() {
+            for (int slot = 0; slot < slotItems.size(); slot++) {
+                clearSlot(slot);
+            }
+        }
+
+        private void clearSlot(int slot) {
+            if (slot < slotItems.size()) {
+                List<SummarySlot> slots = itemLocations.get(slotItems.get(slot));
+                if (slots != null) {
+                    slots.removeIf(summarySlot -> summarySlot.summary == this && summarySlot.slot == slot);
+                    if (slots.isEmpty()) {
+                        itemLocations.remove(slotItems.get(slot));
+                    }
+                }
+            }
+            Prefab prefab = slotPrefabs.remove(slot);
+            if (prefab != null) {
+                prefabSlots.merge(prefab, -1, Integer::sum);
+            }
+            BlockFamily blockFamily = slotBlocks.remove(slot);
+            if (blockFamily != null) {
+                blockCounts.merge(blockFamily, -slotStackSizes.remove(slot), Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * A slot of the summary of an inventory
+     */
+    private static class SummarySlot {
+        private final InventorySummary summary;
+        private final int slot;
+
+        SummarySlot(InventorySummary summary, int slot) {
+            this.summary = summary;
+            this.slot = slot;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.scenario.internal.systems;
+
+import org.terasology.engine.entitySystem.entity.EntityManager;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.entitySystem.systems.UpdateSubscriberSystem;
+import org.terasology.engine.registry.In;
+import org.terasology.scenario.components.ScenarioArgumentContainerComponent;
+import org.terasology.scenario.components.ScenarioComponent;
+import org.terasology.scenario.components.ScenarioLogicLabelComponent;
+import org.terasology.scenario.components.TriggerActionListComponent;
+import org.terasology.scenario.components.TriggerConditionListComponent;
+import org.terasology.scenario.components.TriggerEventListComponent;
+import org.terasology.scenario.internal.utilities.LogicEntityTrees;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reclaims logic entities (events, conditionals, actions and their arguments) that can't be reached from the triggers of the scenario
+ * anymore, for example the argument entities left behind by edits before {@link EntityTreeSystem} destroyed whole subtrees
+ * <p>
+ * Every pass marks the entities reachable from {@link ScenarioComponent#triggerEntities}, and an entity is only reclaimed once it was
+ * unreachable in two consecutive passes, which are at least {@link #PASS_INTERVAL} seconds apart. That leaves entities alone that are
+ * still being put together, like the tree of an edit or an import that isn't linked into the scenario yet. The reclaimed entities are
+ * destroyed a limited number per update, so a large store of entities doesn't stall a single frame
+ * <p>
+ * Temporary entities of the logic screens, entities with an owner, like the logic entities of a trigger or anything a client or screen
+ * holds on to, and the argument entities below them are never reclaimed
+ */
+@RegisterSystem(RegisterMode.AUTHORITY)
+public class LogicOrphanCollectorSystem extends BaseComponentSystem implements UpdateSubscriberSystem {
+    public static final String RECLAIMED_METRIC = "logic.orphansReclaimed";
+
+    /**
+     * Seconds between the end of one pass and the start of the next
+     */
+    private static final float PASS_INTERVAL = 30f;
+
+    /**
+     * Number of logic entities that are checked per update
+     */
+    private static final int CHECKS_PER_UPDATE = 64;
+
+    @In
+    private EntityManager entityManager;
+
+    @In
+    private ScenarioRootRegistry scenarioRoot;
+
+    @In
+    private ScenarioMetricsSystem metrics;
+
+    private final Set<EntityRef> reachable = new HashSet<>();
+
+    /**
+     * Logic entities that were unreachable in the previous pass
+     */
+    private Set<EntityRef> previousUnreachable = new HashSet<>();
+
+    private Deque<EntityRef> candidates;
+
+    private float timeSinceLastPass = PASS_INTERVAL;
+
+    @Override
+    public void update(float delta) {
+        if (candidates == null) {
+            timeSinceLastPass += delta;
+            if (timeSinceLastPass >= PASS_INTERVAL && scenarioRoot.hasScenario()) {
+                startPass();
+            }
+            return;
+        }
+
+        for (int i = 0; i < CHECKS_PER_UPDATE && !candidates.isEmpty(); i++) {
+            EntityRef candidate = candidates.poll();
+            //Checked again as the candidate could have been picked up since the start of the pass
+            if (candidate.exists() && !LogicEntityTrees.isTemporary(candidate) && !candidate.getOwner().exists()) {
+                //Arguments are never shared between logic entities, so the arguments of an unreachable entity are unreachable as well
+                LogicEntityTrees.destroyTree(candidate);
+                metrics.increment(RECLAIMED_METRIC);
+            }
+        }
+        if (candidates.isEmpty()) {
+            candidates = null;
+            reachable.clear();
+            timeSinceLastPass = 0;
+        }
+    }
+
+    private void startPass() {
+        reachable.clear();
+        for (EntityRef trigger : scenarioRoot.getScenario().getComponent(ScenarioComponent.class).triggerEntities) {
+            TriggerEventListComponent events = trigger.getComponent(TriggerEventListComponent.class);
+            if (events != null) {
+                events.events.forEach(this::markReachable);
+            }
+            TriggerConditionListComponent conditions = trigger.getComponent(TriggerConditionListComponent.class);
+            if (conditions != null) {
+                conditions.conditions.forEach(this::markReachable);
+            }
+            TriggerActionListComponent actions = trigger.getComponent(TriggerActionListComponent.class);
+            if (actions != null) {
+                actions.actions.forEach(this::markReachable);
+            }
+        }
+
+        List<EntityRef> unreachable = new ArrayList<>();
+        for (EntityRef entity : entityManager.getEntitiesWith(ScenarioLogicLabelComponent.class)) {
+            if (!reachable.contains(entity)) {
+                unreachable.add(entity);
+            }
+        }
+        for (EntityRef entity : unreachable) {
+            if (LogicEntityTrees.isTemporary(entity) || entity.getOwner().exists()) {
+                markReachable(entity); //Kept together with its arguments
+            }
+        }
+
+        Set<EntityRef> currentUnreachable = new HashSet<>();
+        candidates = new ArrayDeque<>();
+        for (EntityRef entity : unreachable) {
+            if (!reachable.contains(entity)) {
+                currentUnreachable.add(entity);
+                if (previousUnreachable.contains(entity)) {
+                    candidates.add(entity);
+                }
+            }
+        }
+        previousUnreachable = currentUnreachable;
+    }
+
+    private void markReachable(EntityRef entity) {
+        if (!reachable.add(entity)) {
+            return;
+        }
+        ScenarioArgumentContainerComponent args = entity.getComponent(ScenarioArgumentContainerComponent.class);
+        if (args != null && args.arguments != null) {
+            args.arguments.values().forEach(this::markReachable);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.scenario.internal.systems;
+
+import org.terasology.engine.entitySystem.prefab.PrefabManager;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.registry.In;
+import org.terasology.engine.registry.Share;
+import org.terasology.scenario.components.ScenarioLogicLabelComponent;
+import org.terasology.scenario.internal.utilities.LogicPrefabTable;
+
+/**
+ * Shares the {@link LogicPrefabTable} of the logic prefabs that are loaded, which clients encode edited logic entities with and the server
+ * decodes them with. Both sides build it the same way from the prefabs with a {@link ScenarioLogicLabelComponent}, so they get the same
+ * table as long as they have the same modules
+ */
+@Share(LogicPrefabTableSystem.class)
+@RegisterSystem(RegisterMode.ALWAYS)
+public class LogicPrefabTableSystem extends BaseComponentSystem {
+    @In
+    private PrefabManager prefabManager;
+
+    private LogicPrefabTable table;
+
+    /**
+     * @return the table of the logic prefabs, built the first time it is needed
+     */
+    public LogicPrefabTable getTable() {
+        if (table == null) {
+            table = LogicPrefabTable.fromPrefabs(prefabManager.listPrefabs(ScenarioLogicLabelComponent.class));
+        }
+        return table;
+    }
+}
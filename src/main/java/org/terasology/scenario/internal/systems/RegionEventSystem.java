@@ -3,39 +3,96 @@
 package org.terasology.scenario.internal.systems;
 
 import org.joml.Vector3f;
+import org.joml.Vector3i;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.engine.entitySystem.entity.EntityManager;
 import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.event.EventPriority;
+import org.terasology.engine.entitySystem.event.Priority;
 import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
 import org.terasology.engine.entitySystem.systems.RegisterMode;
 import org.terasology.engine.entitySystem.systems.RegisterSystem;
 import org.terasology.engine.entitySystem.systems.UpdateSubscriberSystem;
 import org.terasology.engine.logic.characters.CharacterComponent;
 import org.terasology.engine.logic.location.LocationComponent;
+import org.terasology.engine.monitoring.Activity;
+import org.terasology.engine.monitoring.PerformanceMonitor;
 import org.terasology.engine.registry.In;
+import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
 import org.terasology.scenario.components.ScenarioComponent;
+import org.terasology.scenario.components.ScenarioHubToolUpdateComponent;
 import org.terasology.scenario.components.regions.RegionContainingEntitiesComponent;
 import org.terasology.scenario.components.regions.RegionLocationComponent;
+import org.terasology.scenario.internal.events.RegionResizeEvent;
+import org.terasology.scenario.internal.events.RegionTreeDeleteEvent;
+import org.terasology.scenario.internal.events.RegionTreeFullAddEvent;
+import org.terasology.scenario.internal.events.ScenarioImportedEvent;
 import org.terasology.scenario.internal.events.scenarioEvents.PlayerEnterRegionEvent;
 import org.terasology.scenario.internal.events.scenarioEvents.PlayerLeaveRegionEvent;
+import org.terasology.scenario.internal.utilities.RegionSpatialIndex;
 
-import java.util.List;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * System that will watch regions for all the player character entities that enter and leave regions
  * <p>
- * Will update the {@link RegionContainingEntitiesComponent} of all the scenario region entities that are being monitored
+ * Will update the {@link RegionContainingEntitiesComponent} of all the scenario region entities that are being monitored, components are
+ * only saved (and therefore replicated) once at the end of an update in which a character actually entered or left the region
+ * <p>
+ * Regions are looked up through a {@link RegionSpatialIndex} so that each character is only tested against the regions near it, the index
+ * is kept up to date by listening to the same region tree events as {@link RegionTreeSystem}
+ * <p>
+ * Region membership of a character is only re-evaluated when it moves into a different block or when the regions themselves changed,
+ * since the regions are made of whole blocks a character can't enter or leave one without crossing a block boundary
  */
 @RegisterSystem(RegisterMode.AUTHORITY)
 public class RegionEventSystem extends BaseComponentSystem implements UpdateSubscriberSystem {
+    public static final String SAVES_METRIC = "regions.componentSaves";
+    public static final String SKIPPED_SAVES_METRIC = "regions.componentSavesSkipped";
+    public static final String UPDATE_TIME_METRIC = "regions.updateNanos";
+
     @In
     private EntityManager entityManager;
 
+    @In
+    private ScenarioMetricsSystem metrics;
+
+    @In
+    private ScenarioRootRegistry scenarioRoot;
+
     private final Logger logger = LoggerFactory.getLogger(RegionEventSystem.class);
 
     private EntityRef scenario;
 
+    private final RegionSpatialIndex regionIndex = new RegionSpatialIndex();
+
+    /**
+     * Regions that each character is currently recorded in, mirrors the {@link RegionContainingEntitiesComponent} of the regions. Membership
+     * is checked here instead of in the replicated lists of the regions, which are only changed when a character actually entered or left
+     */
+    private final Map<EntityRef, Set<EntityRef>> characterRegions = new HashMap<>();
+
+    /**
+     * Block position of each character at the time its region membership was last evaluated
+     */
+    private final Map<EntityRef, Vector3i> characterBlocks = new HashMap<>();
+
+    private final Set<EntityRef> containingRegions = new HashSet<>();
+
+    private final Vector3f characterPosition = new Vector3f();
+
+    private boolean regionsChanged;
+
+    /**
+     * Regions whose {@link RegionContainingEntitiesComponent} changed during the current update and need to be saved at the end of it
+     */
+    private final Set<EntityRef> dirtyRegions = new HashSet<>();
+
     /**
      * Region system's update that monitors the regions and updates them with players entering and leaving regions and triggering events
      * when the respective event occurs to pass to the scenario
@@ -43,39 +100,140 @@ public class RegionEventSystem extends BaseComponentSystem implements UpdateSubs
      * @param delta The time (in seconds) since the last engine update.
      */
     public void update(float delta) {
+        try (Activity ignored = PerformanceMonitor.startActivity("Scenario: Region Events")) {
+            long start = System.nanoTime();
+            updateRegions();
+            metrics.addDuration(UPDATE_TIME_METRIC, start);
+        }
+    }
+
+    private void updateRegions() {
         if (scenario == null) {
-            if (entityManager.getEntitiesWith(ScenarioComponent.class).iterator().hasNext()) {
-                EntityRef tempScen = entityManager.getEntitiesWith(ScenarioComponent.class).iterator().next();
-                if (tempScen == null) {
-                    return;
-                }
-                scenario = tempScen;
+            if (scenarioRoot.hasScenario()) {
+                scenario = scenarioRoot.getScenario();
+                rebuildRegionIndex();
             }
         } else {
-            for (EntityRef region : scenario.getComponent(ScenarioComponent.class).regionEntities) {
-                RegionLocationComponent locationRegion = region.getComponent(RegionLocationComponent.class);
+            characterRegions.keySet().removeIf(character -> !character.exists());
+            characterBlocks.keySet().removeIf(character -> !character.exists());
+            for (EntityRef character : entityManager.getEntitiesWith(CharacterComponent.class)) {
+                Vector3f loc = character.getComponent(LocationComponent.class).getWorldPosition(characterPosition);
+                int x = (int) loc.x;
+                int y = (int) loc.y;
+                int z = (int) loc.z;
+
+                Vector3i lastBlock = characterBlocks.get(character);
+                if (lastBlock == null) {
+                    characterBlocks.put(character, new Vector3i(x, y, z));
+                } else if (regionsChanged || lastBlock.x != x || lastBlock.y != y || lastBlock.z != z) {
+                    lastBlock.set(x, y, z);
+                } else {
+                    continue; //Still in the same block, so can't have entered or left any region
+                }
+                updateCharacterRegions(character, x, y, z);
+            }
+            regionsChanged = false;
+            saveDirtyRegions();
+        }
+    }
+
+    @Priority(EventPriority.PRIORITY_TRIVIAL)
+    @ReceiveEvent
+    public void onRegionTreeFullAddEvent(RegionTreeFullAddEvent event, EntityRef entity, ScenarioComponent component) {
+        EntityRef region = event.getAddEntity();
+        regionIndex.put(region, region.getComponent(RegionLocationComponent.class).region);
+        regionsChanged = true;
+    }
+
+    @Priority(EventPriority.PRIORITY_TRIVIAL)
+    @ReceiveEvent
+    public void onRegionResizeEvent(RegionResizeEvent event, EntityRef entity, ScenarioHubToolUpdateComponent component) {
+        regionIndex.put(event.getRegionEntity(), event.getRegion());
+        regionsChanged = true;
+    }
+
+    @Priority(EventPriority.PRIORITY_TRIVIAL)
+    @ReceiveEvent
+    public void onRegionTreeDeleteEvent(RegionTreeDeleteEvent event, EntityRef entity, ScenarioHubToolUpdateComponent component) {
+        regionIndex.remove(event.getDeleteEntity());
+        dirtyRegions.remove(event.getDeleteEntity());
+        for (Set<EntityRef> regions : characterRegions.values()) {
+            regions.remove(event.getDeleteEntity());
+        }
+    }
+
+    @Priority(EventPriority.PRIORITY_TRIVIAL)
+    @ReceiveEvent
+    public void onScenarioImported(ScenarioImportedEvent event, EntityRef entity, ScenarioComponent component) {
+        if (scenario != null) {
+            dirtyRegions.clear();
+            rebuildRegionIndex();
+            regionsChanged = true;
+        }
+    }
+
+    /**
+     * Indexes all of the regions of the scenario and picks up the characters that were already recorded inside of them
+     */
+    private void rebuildRegionIndex() {
+        regionIndex.clear();
+        characterRegions.clear();
+        characterBlocks.clear();
+        for (EntityRef region : scenario.getComponent(ScenarioComponent.class).regionEntities) {
+            regionIndex.put(region, region.getComponent(RegionLocationComponent.class).region);
+            for (EntityRef character : region.getComponent(RegionContainingEntitiesComponent.class).entities) {
+                characterRegions.computeIfAbsent(character, k -> new HashSet<>()).add(region);
+            }
+        }
+    }
+
+    /**
+     * Saves each region whose membership changed this update once, and the scenario only if any region changed. Every region and the
+     * scenario that didn't need a save is counted as skipped in the {@link ScenarioMetricsSystem}
+     */
+    private void saveDirtyRegions() {
+        ScenarioComponent scenarioComponent = scenario.getComponent(ScenarioComponent.class);
+        int possibleSaves = scenarioComponent.regionEntities.size() + 1;
+        int saves = 0;
+        if (!dirtyRegions.isEmpty()) {
+            for (EntityRef region : dirtyRegions) {
+                if (region.exists()) {
+                    region.saveComponent(region.getComponent(RegionContainingEntitiesComponent.class));
+                    saves++;
+                }
+            }
+            scenario.saveComponent(scenarioComponent);
+            saves++;
+            dirtyRegions.clear();
+        }
+        metrics.add(SAVES_METRIC, saves);
+        metrics.add(SKIPPED_SAVES_METRIC, Math.max(0, possibleSaves - saves));
+    }
+
+    private void updateCharacterRegions(EntityRef character, int x, int y, int z) {
+        Set<EntityRef> currentRegions = characterRegions.computeIfAbsent(character, k -> new HashSet<>());
+        containingRegions.clear();
+        regionIndex.collectRegionsContaining(x, y, z, containingRegions);
+
+        Iterator<EntityRef> iterator = currentRegions.iterator();
+        while (iterator.hasNext()) {
+            EntityRef region = iterator.next();
+            if (!containingRegions.contains(region)) { //Just left region
+                iterator.remove();
                 RegionContainingEntitiesComponent containing = region.getComponent(RegionContainingEntitiesComponent.class);
-                List<EntityRef> tempList = containing.entities;
-                for (EntityRef character : entityManager.getEntitiesWith(CharacterComponent.class)) {
-                    Vector3f loc = character.getComponent(LocationComponent.class).getWorldPosition(new Vector3f());
-                    if (locationRegion.region.contains((int) loc.x, (int) loc.y, (int) loc.z)) {
-                        if (!tempList.contains(character)) { //Just entered region
-                            tempList.add(character);
-                            PlayerEnterRegionEvent newEvent = new PlayerEnterRegionEvent(character, region);
-                            scenario.send(newEvent);
-                        }
-                    } else {
-                        if (tempList.contains(character)) { //Just left region
-                            tempList.remove(character);
-                            PlayerLeaveRegionEvent newEvent = new PlayerLeaveRegionEvent(character, region);
-                            scenario.send(newEvent);
-                        }
-                    }
+                if (containing.entities.remove(character)) {
+                    dirtyRegions.add(region);
                 }
-                containing.entities = tempList;
-                region.saveComponent(containing);
+                scenario.send(new PlayerLeaveRegionEvent(character, region));
+            }
+        }
+
+        for (EntityRef region : containingRegions) {
+            if (currentRegions.add(region)) { //Just entered region
+                region.getComponent(RegionContainingEntitiesComponent.class).entities.add(character); //Not in the list, as it is mirrored
+                dirtyRegions.add(region);
+                scenario.send(new PlayerEnterRegionEvent(character, region));
             }
-            scenario.saveComponent(scenario.getComponent(ScenarioComponent.class));
         }
     }
 }
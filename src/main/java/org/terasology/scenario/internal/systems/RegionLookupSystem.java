@@ -0,0 +1,116 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.scenario.internal.systems;
+
+import org.terasology.engine.entitySystem.entity.EntityManager;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
+import org.terasology.engine.entitySystem.event.EventPriority;
+import org.terasology.engine.entitySystem.event.Priority;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.network.NetworkComponent;
+import org.terasology.engine.registry.In;
+import org.terasology.engine.registry.Share;
+import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
+import org.terasology.scenario.components.ScenarioComponent;
+import org.terasology.scenario.components.ScenarioHubToolUpdateComponent;
+import org.terasology.scenario.components.regions.RegionNameComponent;
+import org.terasology.scenario.internal.events.RegionTreeDeleteEvent;
+import org.terasology.scenario.internal.events.RegionTreeFullAddEvent;
+import org.terasology.scenario.internal.events.ScenarioImportedEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index from network id to scenario region entity, used to resolve the regions that clients refer to by network id without looking at
+ * every region
+ * <p>
+ * Regions are added and removed with the same region tree events as {@link RegionTreeSystem}. A region only gets its network id once the
+ * network system registered it, so regions that were activated without one yet are picked up by a single rescan the next time an id isn't
+ * found. The same rescan is done after an import
+ */
+@Share(RegionLookupSystem.class)
+@RegisterSystem(RegisterMode.AUTHORITY)
+public class RegionLookupSystem extends BaseComponentSystem {
+    public static final String RESCANS_METRIC = "regions.networkIdRescans";
+
+    @In
+    private EntityManager entityManager;
+
+    @In
+    private ScenarioMetricsSystem metrics;
+
+    private final Map<Integer, EntityRef> regionsByNetworkId = new HashMap<>();
+
+    private boolean stale = true;
+
+    /**
+     * @param networkId the network id of a region entity
+     * @return the region entity, or {@link EntityRef#NULL} if no region has the network id
+     */
+    public EntityRef getRegion(int networkId) {
+        EntityRef region = regionsByNetworkId.get(networkId);
+        if (region != null && region.exists() && getNetworkId(region) == networkId) {
+            return region;
+        }
+        if (stale) {
+            rebuild();
+            region = regionsByNetworkId.get(networkId);
+            if (region != null) {
+                return region;
+            }
+        }
+        return EntityRef.NULL;
+    }
+
+    @ReceiveEvent
+    public void onRegionActivated(OnActivatedComponent event, EntityRef entity, RegionNameComponent component) {
+        stale = true;
+    }
+
+    @Priority(EventPriority.PRIORITY_TRIVIAL)
+    @ReceiveEvent
+    public void onRegionTreeFullAddEvent(RegionTreeFullAddEvent event, EntityRef entity, ScenarioComponent component) {
+        int networkId = getNetworkId(event.getAddEntity());
+        if (networkId == 0) {
+            stale = true;
+        } else {
+            regionsByNetworkId.put(networkId, event.getAddEntity());
+        }
+    }
+
+    @Priority(EventPriority.PRIORITY_TRIVIAL)
+    @ReceiveEvent
+    public void onRegionTreeDeleteEvent(RegionTreeDeleteEvent event, EntityRef entity, ScenarioHubToolUpdateComponent component) {
+        regionsByNetworkId.values().remove(event.getDeleteEntity());
+    }
+
+    /**
+     * An import replaces all regions without region tree events, so the index is rebuilt the next time a region is looked up
+     */
+    @ReceiveEvent
+    public void onScenarioImported(ScenarioImportedEvent event, EntityRef entity, ScenarioComponent component) {
+        regionsByNetworkId.clear();
+        stale = true;
+    }
+
+    private void rebuild() {
+        regionsByNetworkId.clear();
+        for (EntityRef region : entityManager.getEntitiesWith(RegionNameComponent.class)) {
+            int networkId = getNetworkId(region);
+            if (networkId != 0) {
+                regionsByNetworkId.put(networkId, region);
+            }
+        }
+        stale = false;
+        metrics.increment(RESCANS_METRIC);
+    }
+
+    private static int getNetworkId(EntityRef region) {
+        NetworkComponent network = region.getComponent(NetworkComponent.class);
+        return network == null ? 0 : network.getNetworkId();
+    }
+}
@@ -23,7 +23,6 @@ import org.terasology.engine.world.block.BlockRegion;
 import org.terasology.gestalt.assets.management.AssetManager;
 import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
 import org.terasology.nui.Color;
-import org.terasology.scenario.components.ScenarioComponent;
 import org.terasology.scenario.components.regions.RegionBeingCreatedComponent;
 import org.terasology.scenario.components.regions.RegionLocationComponent;
 import org.terasology.scenario.internal.events.RegionTreeFullAddEvent;
@@ -44,6 +43,9 @@ public class RegionSystem extends BaseComponentSystem {
     @In
     private AssetManager assetManager;
 
+    @In
+    private ScenarioRootRegistry scenarioRoot;
+
     private final Logger logger = LoggerFactory.getLogger(RegionSystem.class);
 
     private EntityRef chatMessageEntity;
@@ -85,11 +87,8 @@ public class RegionSystem extends BaseComponentSystem {
                             loc.region = new BlockRegion(pos).union(create.firstHit);
                             editedRegion.saveComponent(loc);
                             editedRegion.removeComponent(RegionBeingCreatedComponent.class);
-                            if (entityManager.getEntitiesWith(ScenarioComponent.class).iterator().hasNext()) {
-                                EntityRef scenario = entityManager.getEntitiesWith(ScenarioComponent.class).iterator().next();
-                                if (scenario == null) {
-                                    return;
-                                }
+                            EntityRef scenario = scenarioRoot.getScenario();
+                            if (scenario.exists()) {
                                 scenario.send(new RegionTreeFullAddEvent(editedRegion, event.getInstigator()));
                             }
                             event.consume();
@@ -0,0 +1,441 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.scenario.internal.systems;
+
+import com.google.common.collect.Lists;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.engine.core.PathManager;
+import org.terasology.engine.entitySystem.entity.EntityBuilder;
+import org.terasology.engine.entitySystem.entity.EntityManager;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.prefab.Prefab;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.logic.console.commandSystem.annotations.Command;
+import org.terasology.engine.logic.console.commandSystem.annotations.CommandParam;
+import org.terasology.engine.logic.console.commandSystem.annotations.Sender;
+import org.terasology.engine.logic.permission.PermissionManager;
+import org.terasology.engine.network.ClientComponent;
+import org.terasology.engine.registry.In;
+import org.terasology.engine.world.block.BlockRegion;
+import org.terasology.gestalt.assets.management.AssetManager;
+import org.terasology.nui.Color;
+import org.terasology.scenario.components.ScenarioArgumentContainerComponent;
+import org.terasology.scenario.components.ScenarioComponent;
+import org.terasology.scenario.components.ScenarioHubToolUpdateComponent;
+import org.terasology.scenario.components.ScenarioRegionVisibilityComponent;
+import org.terasology.scenario.components.TriggerActionListComponent;
+import org.terasology.scenario.components.TriggerConditionListComponent;
+import org.terasology.scenario.components.TriggerEventListComponent;
+import org.terasology.scenario.components.TriggerNameComponent;
+import org.terasology.scenario.components.information.ScenarioValueBlockUriComponent;
+import org.terasology.scenario.components.information.ScenarioValueComparatorComponent;
+import org.terasology.scenario.components.information.ScenarioValueIntegerComponent;
+import org.terasology.scenario.components.information.ScenarioValueItemPrefabUriComponent;
+import org.terasology.scenario.components.information.ScenarioValuePlayerComponent;
+import org.terasology.scenario.components.information.ScenarioValueRegionComponent;
+import org.terasology.scenario.components.information.ScenarioValueStringComponent;
+import org.terasology.scenario.components.regions.RegionBeingCreatedComponent;
+import org.terasology.scenario.components.regions.RegionColorComponent;
+import org.terasology.scenario.components.regions.RegionLocationComponent;
+import org.terasology.scenario.components.regions.RegionNameComponent;
+import org.terasology.scenario.internal.events.HubtoolRewriteLogicEvent;
+import org.terasology.scenario.internal.events.HubtoolRewriteRegionEvent;
+import org.terasology.scenario.internal.events.RegionAddVisibilityEvent;
+import org.terasology.scenario.internal.events.RegionRedrawEvent;
+import org.terasology.scenario.internal.events.RegionRemoveVisibilityEvent;
+import org.terasology.scenario.internal.events.ScenarioImportedEvent;
+import org.terasology.scenario.internal.utilities.LogicEntityTrees;
+import org.terasology.scenario.internal.utilities.ScenarioArchive;
+import org.terasology.structureTemplates.components.ProtectedRegionsComponent;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Exports the whole scenario (regions, triggers and their logic entities) to a {@link ScenarioArchive} file in the scenarios folder of the
+ * home directory and imports it again, so that the same scenario can be deployed to other worlds and servers
+ * <p>
+ * An import replaces all triggers and regions of the current scenario. The file is read with a single read and parsed once, every entity
+ * is created with its final components as it is read instead of being created and edited like the logic tree events do. The old triggers
+ * and regions are only destroyed once the whole file was built, an import that fails halfway, for example on a prefab that doesn't exist,
+ * destroys what it created so far and leaves the scenario as it was. Systems that index the scenario are told to rebuild with a {@link
+ * ScenarioImportedEvent}
+ */
+@RegisterSystem(RegisterMode.AUTHORITY)
+public class ScenarioArchiveSystem extends BaseComponentSystem {
+    public static final String EXPORT_TIME_METRIC = "archive.exportNanos";
+    public static final String IMPORT_TIME_METRIC = "archive.importNanos";
+    public static final String IMPORTED_BYTES_METRIC = "archive.importedBytes";
+
+    private static final String FOLDER = "scenarios";
+    private static final String EXTENSION = ".scenario";
+    private static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private final Logger logger = LoggerFactory.getLogger(ScenarioArchiveSystem.class);
+
+    @In
+    private EntityManager entityManager;
+
+    @In
+    private AssetManager assetManager;
+
+    @In
+    private ScenarioRootRegistry scenarioRoot;
+
+    @In
+    private ConvertIntoEntitySystem convertIntoEntity;
+
+    @In
+    private ScenarioMetricsSystem metrics;
+
+    @Command(shortDescription = "Exports the triggers and regions of the scenario to a file",
+            helpText = "Writes the scenario to <name>.scenario in the scenarios folder of the home directory",
+            runOnServer = true, requiredPermission = PermissionManager.DEBUG_PERMISSION)
+    public String scenarioExport(@CommandParam("name") String name) {
+        Path file = getFile(name);
+        if (file == null) {
+            return "Scenario names can only contain letters, digits, '-' and '_'";
+        }
+        if (!scenarioRoot.hasScenario()) {
+            return "No scenario exists to export";
+        }
+        long start = System.nanoTime();
+        ScenarioComponent scenario = scenarioRoot.getScenario().getComponent(ScenarioComponent.class);
+        ScenarioArchive.Writer writer = new ScenarioArchive.Writer();
+
+        Map<EntityRef, Integer> regionIndices = new HashMap<>();
+        for (EntityRef region : scenario.regionEntities) {
+            RegionNameComponent regionName = region.getComponent(RegionNameComponent.class);
+            RegionColorComponent color = region.getComponent(RegionColorComponent.class);
+            RegionLocationComponent location = region.getComponent(RegionLocationComponent.class);
+            if (regionName == null || color == null || location == null) {
+                continue;
+            }
+            regionIndices.put(region, regionIndices.size());
+            writer.addRegion(regionName.regionName, color.color, location.region, region.hasComponent(ProtectedRegionsComponent.class));
+        }
+
+        int triggers = 0;
+        for (EntityRef trigger : scenario.triggerEntities) {
+            TriggerNameComponent triggerName = trigger.getComponent(TriggerNameComponent.class);
+            if (triggerName == null) {
+                continue;
+            }
+            writer.addTrigger(triggerName.name == null ? "" : triggerName.name);
+            triggers++;
+            TriggerEventListComponent events = trigger.getComponent(TriggerEventListComponent.class);
+            if (events != null) {
+                writeLogicEntities(writer, ScenarioArchive.SECTION_EVENTS, events.events, regionIndices);
+            }
+            TriggerConditionListComponent conditions = trigger.getComponent(TriggerConditionListComponent.class);
+            if (conditions != null) {
+                writeLogicEntities(writer, ScenarioArchive.SECTION_CONDITIONS, conditions.conditions, regionIndices);
+            }
+            TriggerActionListComponent actions = trigger.getComponent(TriggerActionListComponent.class);
+            if (actions != null) {
+                writeLogicEntities(writer, ScenarioArchive.SECTION_ACTIONS, actions.actions, regionIndices);
+            }
+        }
+
+        byte[] archive = writer.toByteArray();
+        try {
+            Files.createDirectories(file.getParent());
+            Files.write(file, archive);
+        } catch (IOException e) {
+            logger.error("Failed to export the scenario to {}", file, e);
+            return "Failed to write " + file + ": " + e.getMessage();
+        }
+        metrics.addDuration(EXPORT_TIME_METRIC, start);
+        return "Exported " + triggers + " triggers and " + regionIndices.size() + " regions to " + file + " (" + archive.length + " bytes)";
+    }
+
+    @Command(shortDescription = "Replaces the triggers and regions of the scenario with the ones of an exported file",
+            helpText = "Reads <name>.scenario from the scenarios folder of the home directory, the regions are made visible to the sender",
+            runOnServer = true, requiredPermission = PermissionManager.DEBUG_PERMISSION)
+    public String scenarioImport(@CommandParam("name") String name, @Sender EntityRef sender) {
+        Path file = getFile(name);
+        if (file == null) {
+            return "Scenario names can only contain letters, digits, '-' and '_'";
+        }
+        if (!scenarioRoot.hasScenario()) {
+            return "No scenario exists to import into";
+        }
+        if (!Files.isRegularFile(file)) {
+            return "No exported scenario at " + file;
+        }
+        long start = System.nanoTime();
+        byte[] archive;
+        try {
+            archive = Files.readAllBytes(file);
+        } catch (IOException e) {
+            logger.error("Failed to import the scenario from {}", file, e);
+            return "Failed to read " + file + ": " + e.getMessage();
+        }
+
+        Importer importer = new Importer();
+        try {
+            ScenarioArchive.read(archive, importer);
+            importer.finishTrigger();
+        } catch (IllegalArgumentException e) {
+            importer.abort();
+            return "Failed to import " + file + ": " + e.getMessage();
+        }
+
+        EntityRef scenarioEntity = scenarioRoot.getScenario();
+        ScenarioComponent scenario = scenarioEntity.getComponent(ScenarioComponent.class);
+        clearScenario(scenario);
+        scenario.triggerEntities = importer.triggers;
+        scenario.regionEntities = importer.regions;
+        scenarioEntity.saveComponent(scenario);
+        scenarioEntity.send(new ScenarioImportedEvent());
+
+        ClientComponent client = sender.getComponent(ClientComponent.class);
+        if (client != null) {
+            for (EntityRef region : importer.regions) {
+                client.character.send(new RegionAddVisibilityEvent(region));
+            }
+        }
+        for (EntityRef e : entityManager.getEntitiesWith(ScenarioHubToolUpdateComponent.class)) {
+            e.send(new HubtoolRewriteLogicEvent());
+            e.send(new HubtoolRewriteRegionEvent());
+        }
+        for (EntityRef e : entityManager.getEntitiesWith(ScenarioRegionVisibilityComponent.class)) {
+            e.send(new RegionRedrawEvent());
+        }
+
+        metrics.add(IMPORTED_BYTES_METRIC, archive.length);
+        metrics.addDuration(IMPORT_TIME_METRIC, start);
+        return "Imported " + importer.triggers.size() + " triggers and " + importer.regions.size() + " regions from " + file;
+    }
+
+    /**
+     * @return the file of an exported scenario, or null if the name could reach outside of the scenarios folder
+     */
+    private Path getFile(String name) {
+        if (name == null || !NAME_PATTERN.matcher(name).matches()) {
+            return null;
+        }
+        return PathManager.getInstance().getHomePath().resolve(FOLDER).resolve(name + EXTENSION);
+    }
+
+    private void clearScenario(ScenarioComponent scenario) {
+        for (EntityRef trigger : scenario.triggerEntities) {
+            LogicEntityTrees.destroyTrigger(trigger);
+        }
+        for (EntityRef region : scenario.regionEntities) {
+            for (EntityRef e : entityManager.getEntitiesWith(ScenarioRegionVisibilityComponent.class)) {
+                e.send(new RegionRemoveVisibilityEvent(region));
+            }
+            region.destroy();
+        }
+    }
+
+    private void writeLogicEntities(ScenarioArchive.Writer writer, byte section, List<EntityRef> logicEntities,
+                                    Map<EntityRef, Integer> regionIndices) {
+        for (EntityRef logicEntity : logicEntities) {
+            if (logicEntity.exists()) {
+                writer.beginLogicEntity(section);
+                writeTree(writer, logicEntity, 0, null, regionIndices);
+            }
+        }
+    }
+
+    /**
+     * Writes an entity and its arguments in the same form as the {@link ConvertEntitySystem} does, constants are written as just their
+     * value as the argument was already created with the right prefab by the defaults of its parent
+     */
+    private void writeTree(ScenarioArchive.Writer writer, EntityRef entity, int depth, String key, Map<EntityRef, Integer> regionIndices) {
+        if (depth > 0 && writeConstant(writer, entity, depth, key, regionIndices)) {
+            return;
+        }
+        writer.addPrefab(depth, key, entity.getParentPrefab().getName());
+        ScenarioArgumentContainerComponent args = entity.getComponent(ScenarioArgumentContainerComponent.class);
+        if (args != null && args.arguments != null) {
+            for (Map.Entry<String, EntityRef> argument : args.arguments.entrySet()) {
+                if (argument.getValue().exists()) {
+                    writeTree(writer, argument.getValue(), depth + 1, argument.getKey(), regionIndices);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return if the entity is a constant, constants without a value are left at their default and not written
+     */
+    private boolean writeConstant(ScenarioArchive.Writer writer, EntityRef entity, int depth, String key,
+                                  Map<EntityRef, Integer> regionIndices) {
+        ScenarioValueRegionComponent region = entity.getComponent(ScenarioValueRegionComponent.class);
+        if (region != null) {
+            Integer index = regionIndices.get(region.regionEntity);
+            if (index != null) {
+                writer.addRegionValue(depth, key, index);
+            }
+            return true;
+        }
+
+        String value;
+        if (entity.hasComponent(ScenarioValueIntegerComponent.class)) {
+            value = Integer.toString(entity.getComponent(ScenarioValueIntegerComponent.class).value);
+        } else if (entity.hasComponent(ScenarioValueStringComponent.class)) {
+            value = entity.getComponent(ScenarioValueStringComponent.class).string;
+        } else if (entity.hasComponent(ScenarioValueBlockUriComponent.class)) {
+            value = entity.getComponent(ScenarioValueBlockUriComponent.class).blockUri;
+        } else if (entity.hasComponent(ScenarioValueItemPrefabUriComponent.class)) {
+            value = entity.getComponent(ScenarioValueItemPrefabUriComponent.class).prefabURI;
+        } else if (entity.hasComponent(ScenarioValuePlayerComponent.class)) {
+            ScenarioValuePlayerComponent.PlayerType type = entity.getComponent(ScenarioValuePlayerComponent.class).type;
+            value = type == null ? null : type.name();
+        } else if (entity.hasComponent(ScenarioValueComparatorComponent.class)) {
+            ScenarioValueComparatorComponent.Comparison compare = entity.getComponent(ScenarioValueComparatorComponent.class).compare;
+            value = compare == null ? null : compare.name();
+        } else {
+            return false;
+        }
+        if (value != null) {
+            writer.addValue(depth, key, value);
+        }
+        return true;
+    }
+
+    /**
+     * Creates the entities of an archive. Regions and triggers are built with all of their components at once, the logic entities of a
+     * trigger are collected until the next trigger starts and then put into the lists of the trigger when it is built. Nothing is linked
+     * to the scenario, so {@link #abort()} can destroy everything created if the archive turns out to be malformed
+     */
+    private class Importer implements ScenarioArchive.Visitor {
+        private List<EntityRef> regions = new ArrayList<>();
+        private List<EntityRef> triggers = new ArrayList<>();
+
+        private String triggerName;
+        private final List<EntityRef> events = new ArrayList<>();
+        private final List<EntityRef> conditions = new ArrayList<>();
+        private final List<EntityRef> actions = new ArrayList<>();
+
+        private byte section;
+        private ConvertIntoEntitySystem.TreeBuilder treeBuilder;
+
+        @Override
+        public void visitHeader(int regionCount, int triggerCount, int logicEntityCount) {
+            regions = new ArrayList<>(regionCount);
+            triggers = new ArrayList<>(triggerCount);
+        }
+
+        @Override
+        public void visitRegion(String name, Color color, BlockRegion region, boolean isProtected) {
+            EntityBuilder builder = entityManager.newBuilder(assetManager.getAsset("scenario:scenarioCreationEntity", Prefab.class).get());
+            builder.removeComponent(RegionBeingCreatedComponent.class);
+            builder.getComponent(RegionNameComponent.class).regionName = name;
+            builder.getComponent(RegionColorComponent.class).color = color;
+            builder.getComponent(RegionLocationComponent.class).region = region;
+            if (isProtected) {
+                ProtectedRegionsComponent protectedRegionsComponent = new ProtectedRegionsComponent();
+                protectedRegionsComponent.regions = Lists.newArrayList(new BlockRegion(region));
+                builder.addComponent(protectedRegionsComponent);
+            }
+            regions.add(builder.build());
+        }
+
+        @Override
+        public void visitTrigger(String name) {
+            finishTrigger();
+            triggerName = name;
+        }
+
+        @Override
+        public void visitLogicEntity(byte logicSection) {
+            section = logicSection;
+            treeBuilder = convertIntoEntity.newTreeBuilder();
+        }
+
+        @Override
+        public void visitPrefab(int depth, String key, String prefab) {
+            treeBuilder.visitPrefab(depth, key, prefab);
+        }
+
+        @Override
+        public void visitValue(int depth, String key, String value) {
+            treeBuilder.visitValue(depth, key, value);
+        }
+
+        @Override
+        public void visitRegionValue(int depth, String key, int region) {
+            treeBuilder.visitValue(depth, key, "x" + regions.get(region).getId()); //Local id form of the region constant
+        }
+
+        @Override
+        public void visitLogicEntityEnd() {
+            EntityRef logicEntity = treeBuilder.finish();
+            treeBuilder = null;
+            if (!logicEntity.exists()) {
+                return;
+            }
+            if (section == ScenarioArchive.SECTION_EVENTS) {
+                events.add(logicEntity);
+            } else if (section == ScenarioArchive.SECTION_CONDITIONS) {
+                conditions.add(logicEntity);
+            } else {
+                actions.add(logicEntity);
+            }
+        }
+
+        private void abort() {
+            if (treeBuilder != null) {
+                treeBuilder.abort();
+                treeBuilder = null;
+            }
+            events.forEach(LogicEntityTrees::destroyTree);
+            conditions.forEach(LogicEntityTrees::destroyTree);
+            actions.forEach(LogicEntityTrees::destroyTree);
+            triggers.forEach(LogicEntityTrees::destroyTrigger);
+            regions.forEach(EntityRef::destroy);
+            triggerName = null;
+            events.clear();
+            conditions.clear();
+            actions.clear();
+            triggers.clear();
+            regions.clear();
+        }
+
+        private void finishTrigger() {
+            if (triggerName == null) {
+                return;
+            }
+            Prefab emptyNetworkEntity = assetManager.getAsset("scenario:emptyNetworkEntity", Prefab.class).get();
+            EntityBuilder builder = entityManager.newBuilder(assetManager.getAsset("Scenario:trigger", Prefab.class).get());
+            TriggerNameComponent name = builder.getComponent(TriggerNameComponent.class);
+            name.name = triggerName;
+            name.entityForEvent = entityManager.create(emptyNetworkEntity);
+            name.entityForCondition = entityManager.create(emptyNetworkEntity);
+            name.entityForAction = entityManager.create(emptyNetworkEntity);
+            builder.getComponent(TriggerEventListComponent.class).events = new ArrayList<>(events);
+            builder.getComponent(TriggerConditionListComponent.class).conditions = new ArrayList<>(conditions);
+            builder.getComponent(TriggerActionListComponent.class).actions = new ArrayList<>(actions);
+            EntityRef trigger = builder.build();
+
+            for (EntityRef logicEntity : events) {
+                logicEntity.setOwner(trigger);
+            }
+            for (EntityRef logicEntity : conditions) {
+                logicEntity.setOwner(trigger);
+            }
+            for (EntityRef logicEntity : actions) {
+                logicEntity.setOwner(trigger);
+            }
+            triggers.add(trigger);
+
+            triggerName = null;
+            events.clear();
+            conditions.clear();
+            actions.clear();
+        }
+    }
+}
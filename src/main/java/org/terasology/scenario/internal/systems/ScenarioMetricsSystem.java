@@ -0,0 +1,67 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.scenario.internal.systems;
+
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.logic.console.commandSystem.annotations.Command;
+import org.terasology.engine.logic.permission.PermissionManager;
+import org.terasology.engine.registry.Share;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Shared holder of the counters and gauges that the scenario systems record about their own work, used to verify the effect of
+ * optimizations on busy servers.
+ * <p>
+ * Counters only ever grow, gauges are overwritten with the current value. Both can be printed with the scenarioMetrics console command.
+ * <p>
+ * The hot paths that record durations in here are also wrapped in {@link org.terasology.engine.monitoring.PerformanceMonitor} activities
+ * prefixed with "Scenario:", so they can be compared against the rest of the frame in the engine's performance monitor.
+ */
+@Share(ScenarioMetricsSystem.class)
+@RegisterSystem(RegisterMode.AUTHORITY)
+public class ScenarioMetricsSystem extends BaseComponentSystem {
+    private final Map<String, Long> metrics = new TreeMap<>();
+
+    public void increment(String name) {
+        add(name, 1);
+    }
+
+    public void add(String name, long amount) {
+        metrics.merge(name, amount, Long::sum);
+    }
+
+    /**
+     * Adds the time passed since startNanos, taken from {@link System#nanoTime()}, to a counter. Counters of durations end with "Nanos"
+     */
+    public void addDuration(String name, long startNanos) {
+        add(name, System.nanoTime() - startNanos);
+    }
+
+    public void setGauge(String name, long value) {
+        metrics.put(name, value);
+    }
+
+    public long get(String name) {
+        return metrics.getOrDefault(name, 0L);
+    }
+
+    @Command(shortDescription = "Prints the performance counters of the scenario systems", runOnServer = true,
+            requiredPermission = PermissionManager.DEBUG_PERMISSION)
+    public String scenarioMetrics() {
+        if (metrics.isEmpty()) {
+            return "No scenario metrics recorded yet";
+        }
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, Long> metric : metrics.entrySet()) {
+            if (builder.length() > 0) {
+                builder.append('\n');
+            }
+            builder.append(metric.getKey()).append(": ").append(metric.getValue());
+        }
+        return builder.toString();
+    }
+}
@@ -4,12 +4,21 @@ package org.terasology.scenario.internal.systems;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.terasology.engine.entitySystem.entity.EntityBuilder;
 import org.terasology.engine.entitySystem.entity.EntityManager;
 import org.terasology.engine.entitySystem.entity.EntityRef;
 import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
 import org.terasology.engine.entitySystem.systems.RegisterMode;
 import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.entitySystem.systems.UpdateSubscriberSystem;
+import org.terasology.engine.logic.console.commandSystem.annotations.Command;
+import org.terasology.engine.logic.console.commandSystem.annotations.CommandParam;
+import org.terasology.engine.logic.permission.PermissionManager;
+import org.terasology.engine.monitoring.Activity;
+import org.terasology.engine.monitoring.PerformanceMonitor;
 import org.terasology.engine.registry.In;
+import org.terasology.engine.world.block.BlockComponent;
+import org.terasology.gestalt.entitysystem.component.Component;
 import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
 import org.terasology.scenario.components.ScenarioArgumentContainerComponent;
 import org.terasology.scenario.components.ScenarioComponent;
@@ -20,112 +29,258 @@ import org.terasology.scenario.components.events.ScenarioSecondaryEnterRegionCom
 import org.terasology.scenario.components.events.ScenarioSecondaryLeaveRegionComponent;
 import org.terasology.scenario.components.events.ScenarioSecondaryRespawnComponent;
 import org.terasology.scenario.components.events.ScenarioSecondarySpawnComponent;
+import org.terasology.scenario.components.events.triggerInformation.InfoDestroyedBlockBatchComponent;
 import org.terasology.scenario.components.events.triggerInformation.InfoDestroyedBlockComponent;
 import org.terasology.scenario.components.events.triggerInformation.InfoTriggerRegionComponent;
 import org.terasology.scenario.components.events.triggerInformation.InfoTriggeringEntityComponent;
 import org.terasology.scenario.internal.events.EventTriggerEvent;
-import org.terasology.scenario.internal.events.evaluationEvents.ConditionalCheckEvent;
-import org.terasology.scenario.internal.events.evaluationEvents.EvaluateRegionEvent;
 import org.terasology.scenario.internal.events.scenarioEvents.DoDestroyScenarioEvent;
 import org.terasology.scenario.internal.events.scenarioEvents.PlayerEnterRegionEvent;
 import org.terasology.scenario.internal.events.scenarioEvents.PlayerLeaveRegionEvent;
 import org.terasology.scenario.internal.events.scenarioEvents.PlayerRespawnScenarioEvent;
 import org.terasology.scenario.internal.events.scenarioEvents.PlayerSpawnScenarioEvent;
+import org.terasology.scenario.internal.systems.ComponentEvaluation.EvaluationPlanSystem;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * System that relays game events into scenario events and sends them using a filled up information entity that contains information of the
  * trigger which could include who the triggering entity or region is, or block details for breaking the block, etc
  * <p>
- * First checks any conditionals with a {@link ConditionalCheckEvent} and if the conditional is satisfies it Will send {@link
- * EventTriggerEvent} to the attached list of actions, technically in the order of the actions on the hubtool
+ * First checks any conditionals with their compiled plan from the {@link EvaluationPlanSystem}, cheapest to reject first, and if all
+ * conditionals are satisfied it Will send {@link EventTriggerEvent} to the attached list of actions, technically in the order of the
+ * actions on the hubtool
+ * <p>
+ * The event entities listening for each kind of scenario event are looked up in the {@link TriggerIndexSystem}
+ * <p>
+ * The information entity only lives for the dispatch of a single scenario event, it is created as a non persistent entity and destroyed
+ * once all of the triggers and their actions have handled it, so it never reaches the entity store of the save game
+ * <p>
+ * Block destroyed events can optionally be batched (scenarioBatchBlockDestroy console command), then all blocks a player destroyed within a
+ * tick trigger once at the end of the tick. The triggering block is the last destroyed block and the counts of all the destroyed blocks are
+ * available through a {@link InfoDestroyedBlockBatchComponent} on the information entity
  */
 @RegisterSystem(RegisterMode.AUTHORITY)
-public class ScenarioRootManagementSystem extends BaseComponentSystem {
+public class ScenarioRootManagementSystem extends BaseComponentSystem implements UpdateSubscriberSystem {
+    public static final String LIVE_CONTEXTS_METRIC = "triggers.liveContexts";
+    public static final String CREATED_CONTEXTS_METRIC = "triggers.contextsCreated";
+    public static final String TRIGGER_TIME_METRIC = "triggers.evaluationNanos";
+    public static final String BLOCK_DESTROY_TIME_METRIC = "triggers.blockDestroyDispatchNanos";
+    public static final String BATCHED_DESTROYS_METRIC = "blockDestroy.batchedOccurrences";
+    public static final String DESTROY_BATCHES_METRIC = "blockDestroy.batchesDispatched";
+
     @In
     EntityManager entityManager;
 
+    @In
+    TriggerIndexSystem triggerIndex;
+
+    @In
+    ScenarioMetricsSystem metrics;
+
+    @In
+    EvaluationPlanSystem evaluationPlans;
+
+    private int liveContexts;
+
+    private boolean batchBlockDestroys;
+
+    /**
+     * Block destroyed events of the current tick by their instigator, only used while batching
+     */
+    private final Map<EntityRef, DestroyedBlockBatch> pendingDestroys = new LinkedHashMap<>();
+
     private final Logger logger = LoggerFactory.getLogger(ScenarioRootManagementSystem.class);
 
     @ReceiveEvent
     public void onEventTrigger(EventTriggerEvent event, EntityRef entity, TriggerActionListComponent actions) {
-        //Check Condition
-        for (EntityRef c : entity.getComponent(TriggerConditionListComponent.class).conditions) {
-            ConditionalCheckEvent cond = new ConditionalCheckEvent(event.informationEntity);
-            c.send(cond);
-            if (!cond.getResult()) {
+        try (Activity ignored = PerformanceMonitor.startActivity("Scenario: Trigger Evaluation")) {
+            long start = System.nanoTime();
+            //Check Condition
+            List<EntityRef> conditions = entity.getComponent(TriggerConditionListComponent.class).conditions;
+            if (!evaluationPlans.checkConditions(entity, conditions, event.informationEntity)) {
+                metrics.addDuration(TRIGGER_TIME_METRIC, start);
                 return; //Break check if any conditional is registered as false
             }
-        }
-        //Send to actions
-        for (EntityRef a : actions.actions) {
-            //Send new event in case eventually a new event needs to be made in which triggers and actions need different data
-            a.send(new EventTriggerEvent(event.informationEntity));
+            //Send to actions
+            for (EntityRef a : actions.actions) {
+                //Send new event in case eventually a new event needs to be made in which triggers and actions need different data
+                a.send(new EventTriggerEvent(event.informationEntity));
+            }
+            metrics.addDuration(TRIGGER_TIME_METRIC, start);
         }
     }
 
 
     @ReceiveEvent
     public void onPlayerRespawnScenarioEvent(PlayerRespawnScenarioEvent event, EntityRef entity, ScenarioComponent component) {
-        Iterable<EntityRef> entityList = entityManager.getEntitiesWith(ScenarioSecondaryRespawnComponent.class);
+        Iterable<EntityRef> entityList = triggerIndex.getEventEntities(ScenarioSecondaryRespawnComponent.class);
         InfoTriggeringEntityComponent triggerEntity = new InfoTriggeringEntityComponent();
         triggerEntity.entity = event.getSpawningEntity();
-        EntityRef passEntity = entityManager.create(triggerEntity);
-        entityList.forEach(e -> e.getOwner().send(new EventTriggerEvent(passEntity)));
+        EntityRef passEntity = createTriggerContext(triggerEntity);
+        try {
+            entityList.forEach(e -> e.getOwner().send(new EventTriggerEvent(passEntity)));
+        } finally {
+            releaseTriggerContext(passEntity);
+        }
     }
 
     @ReceiveEvent
     public void onPlayerSpawnScenarioEvent(PlayerSpawnScenarioEvent event, EntityRef entity, ScenarioComponent component) {
-        Iterable<EntityRef> entityList = entityManager.getEntitiesWith(ScenarioSecondarySpawnComponent.class);
+        Iterable<EntityRef> entityList = triggerIndex.getEventEntities(ScenarioSecondarySpawnComponent.class);
         InfoTriggeringEntityComponent triggerEntity = new InfoTriggeringEntityComponent();
         triggerEntity.entity = event.getSpawningEntity();
-        EntityRef passEntity = entityManager.create(triggerEntity);
-        entityList.forEach(e -> e.getOwner().send(new EventTriggerEvent(passEntity)));
+        EntityRef passEntity = createTriggerContext(triggerEntity);
+        try {
+            entityList.forEach(e -> e.getOwner().send(new EventTriggerEvent(passEntity)));
+        } finally {
+            releaseTriggerContext(passEntity);
+        }
     }
 
     @ReceiveEvent
     public void onDoDestroyScenarioEvent(DoDestroyScenarioEvent event, EntityRef entity, ScenarioComponent component) {
-        Iterable<EntityRef> entityList = entityManager.getEntitiesWith(ScenarioSecondaryBlockDestroyComponent.class);
-        InfoTriggeringEntityComponent triggerEntity = new InfoTriggeringEntityComponent();
-        triggerEntity.entity = event.getInstigator();
         InfoDestroyedBlockComponent destroyed = new InfoDestroyedBlockComponent();
         destroyed.damageType = event.getDamageType();
         destroyed.destroyedBlock = event.getDestroyed();
         destroyed.directCause = event.getDirectCause();
-        EntityRef passEntity = entityManager.create(triggerEntity, destroyed);
-        entityList.forEach(e -> e.getOwner().send(new EventTriggerEvent(passEntity)));
+        BlockComponent block = event.getDestroyed().getComponent(BlockComponent.class);
+        if (block != null) {
+            destroyed.blockFamily = block.getBlock().getBlockFamily();
+        }
+
+        if (batchBlockDestroys) {
+            pendingDestroys.computeIfAbsent(event.getInstigator(), k -> new DestroyedBlockBatch()).add(destroyed);
+            metrics.increment(BATCHED_DESTROYS_METRIC);
+        } else {
+            dispatchBlockDestroy(event.getInstigator(), destroyed);
+        }
+    }
+
+    /**
+     * Dispatches the block destroyed events batched during the tick, one for each player that destroyed blocks
+     */
+    @Override
+    public void update(float delta) {
+        if (pendingDestroys.isEmpty()) {
+            return;
+        }
+        //Copied as the actions of the triggers can destroy more blocks, which will be part of the next batch
+        Map<EntityRef, DestroyedBlockBatch> batches = new LinkedHashMap<>(pendingDestroys);
+        pendingDestroys.clear();
+        for (Map.Entry<EntityRef, DestroyedBlockBatch> batch : batches.entrySet()) {
+            if (batch.getKey().exists()) {
+                dispatchBlockDestroy(batch.getKey(), batch.getValue().last, batch.getValue().counts);
+                metrics.increment(DESTROY_BATCHES_METRIC);
+            }
+        }
+    }
+
+    @Command(shortDescription = "Sets if all blocks destroyed by a player in a tick trigger block destroyed events only once",
+            runOnServer = true, requiredPermission = PermissionManager.DEBUG_PERMISSION)
+    public String scenarioBatchBlockDestroy(@CommandParam("enabled") boolean enabled) {
+        batchBlockDestroys = enabled;
+        return "Batching of block destroyed events " + (enabled ? "enabled" : "disabled");
+    }
+
+    private void dispatchBlockDestroy(EntityRef instigator, Component... information) {
+        Iterable<EntityRef> entityList = triggerIndex.getEventEntities(ScenarioSecondaryBlockDestroyComponent.class);
+        InfoTriggeringEntityComponent triggerEntity = new InfoTriggeringEntityComponent();
+        triggerEntity.entity = instigator;
+        Component[] components = new Component[information.length + 1];
+        components[0] = triggerEntity;
+        System.arraycopy(information, 0, components, 1, information.length);
+        try (Activity ignored = PerformanceMonitor.startActivity("Scenario: Block Destroy Dispatch")) {
+            long start = System.nanoTime();
+            EntityRef passEntity = createTriggerContext(components);
+            try {
+                entityList.forEach(e -> e.getOwner().send(new EventTriggerEvent(passEntity)));
+            } finally {
+                releaseTriggerContext(passEntity);
+            }
+            metrics.addDuration(BLOCK_DESTROY_TIME_METRIC, start);
+        }
     }
 
     @ReceiveEvent
     public void onPlayerEnterRegionEvent(PlayerEnterRegionEvent event, EntityRef entity, ScenarioComponent component) {
-        Iterable<EntityRef> entityList = entityManager.getEntitiesWith(ScenarioSecondaryEnterRegionComponent.class);
         InfoTriggeringEntityComponent triggerEntity = new InfoTriggeringEntityComponent();
         triggerEntity.entity = event.getTriggerEntity();
         InfoTriggerRegionComponent triggerRegion = new InfoTriggerRegionComponent();
         triggerRegion.region = event.getRegion();
-        EntityRef passEntity = entityManager.create(triggerEntity, triggerRegion);
-        entityList.forEach(e -> {
-            EvaluateRegionEvent reg = new EvaluateRegionEvent(passEntity);
-            e.getComponent(ScenarioArgumentContainerComponent.class).arguments.get("region").send(reg);
-            if (reg.getResult().equals(event.getRegion())) {
-                e.getOwner().send(new EventTriggerEvent(passEntity));
-            }
-        });
+        EntityRef passEntity = createTriggerContext(triggerEntity, triggerRegion);
+        try {
+            triggerIndex.getRegionEventEntities(ScenarioSecondaryEnterRegionComponent.class, event.getRegion())
+                    .forEach(e -> e.getOwner().send(new EventTriggerEvent(passEntity)));
+            triggerIndex.getDynamicRegionEventEntities(ScenarioSecondaryEnterRegionComponent.class).forEach(e -> {
+                EntityRef region = e.getComponent(ScenarioArgumentContainerComponent.class).arguments.get("region");
+                if (event.getRegion().equals(evaluationPlans.evaluateRegion(region, passEntity))) {
+                    e.getOwner().send(new EventTriggerEvent(passEntity));
+                }
+            });
+        } finally {
+            releaseTriggerContext(passEntity);
+        }
     }
 
     @ReceiveEvent
     public void onPlayerLeaveRegionEvent(PlayerLeaveRegionEvent event, EntityRef entity, ScenarioComponent component) {
-        Iterable<EntityRef> entityList = entityManager.getEntitiesWith(ScenarioSecondaryLeaveRegionComponent.class);
         InfoTriggeringEntityComponent triggerEntity = new InfoTriggeringEntityComponent();
         triggerEntity.entity = event.getTriggerEntity();
         InfoTriggerRegionComponent triggerRegion = new InfoTriggerRegionComponent();
         triggerRegion.region = event.getRegion();
-        EntityRef passEntity = entityManager.create(triggerEntity, triggerRegion);
-        entityList.forEach(e -> {
-            EvaluateRegionEvent reg = new EvaluateRegionEvent(passEntity);
-            e.getComponent(ScenarioArgumentContainerComponent.class).arguments.get("region").send(reg);
-            if (reg.getResult().equals(event.getRegion())) {
-                e.getOwner().send(new EventTriggerEvent(passEntity));
+        EntityRef passEntity = createTriggerContext(triggerEntity, triggerRegion);
+        try {
+            triggerIndex.getRegionEventEntities(ScenarioSecondaryLeaveRegionComponent.class, event.getRegion())
+                    .forEach(e -> e.getOwner().send(new EventTriggerEvent(passEntity)));
+            triggerIndex.getDynamicRegionEventEntities(ScenarioSecondaryLeaveRegionComponent.class).forEach(e -> {
+                EntityRef region = e.getComponent(ScenarioArgumentContainerComponent.class).arguments.get("region");
+                if (event.getRegion().equals(evaluationPlans.evaluateRegion(region, passEntity))) {
+                    e.getOwner().send(new EventTriggerEvent(passEntity));
+                }
+            });
+        } finally {
+            releaseTriggerContext(passEntity);
+        }
+    }
+
+    /**
+     * Creates the information entity that is passed along with a single scenario event, must be released with {@link
+     * #releaseTriggerContext(EntityRef)} once the event has been dispatched
+     */
+    private EntityRef createTriggerContext(Component... components) {
+        EntityBuilder builder = entityManager.newBuilder();
+        builder.setPersistent(false);
+        for (Component component : components) {
+            builder.addComponent(component);
+        }
+        liveContexts++;
+        metrics.increment(CREATED_CONTEXTS_METRIC);
+        metrics.setGauge(LIVE_CONTEXTS_METRIC, liveContexts);
+        return builder.build();
+    }
+
+    private void releaseTriggerContext(EntityRef passEntity) {
+        passEntity.destroy();
+        liveContexts--;
+        metrics.setGauge(LIVE_CONTEXTS_METRIC, liveContexts);
+    }
+
+    /**
+     * Blocks destroyed by a single player within a tick
+     */
+    private static class DestroyedBlockBatch {
+        private InfoDestroyedBlockComponent last;
+        private final InfoDestroyedBlockBatchComponent counts = new InfoDestroyedBlockBatchComponent();
+
+        void add(InfoDestroyedBlockComponent destroyed) {
+            last = destroyed;
+            counts.count++;
+            if (destroyed.blockFamily != null) {
+                counts.countsByFamily.merge(destroyed.blockFamily.getURI().toString(), 1, Integer::sum);
             }
-        });
+        }
     }
 }
@@ -0,0 +1,65 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.scenario.internal.systems;
+
+import org.terasology.engine.entitySystem.entity.EntityManager;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.BeforeDeactivateComponent;
+import org.terasology.engine.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.registry.In;
+import org.terasology.engine.registry.Share;
+import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
+import org.terasology.scenario.components.ScenarioComponent;
+
+/**
+ * Keeps track of the scenario root entity, the entity with the {@link ScenarioComponent}, so that systems and screens that need it for
+ * every event don't have to query the entity manager each time
+ * <p>
+ * The whole scenario system relies on only one scenario entity existing, the first one that is activated is used until it is deactivated
+ */
+@Share(ScenarioRootRegistry.class)
+@RegisterSystem(RegisterMode.ALWAYS)
+public class ScenarioRootRegistry extends BaseComponentSystem {
+    @In
+    private EntityManager entityManager;
+
+    private EntityRef scenario = EntityRef.NULL;
+
+    @Override
+    public void postBegin() {
+        if (!scenario.exists()) { //Scenario activated before this system could listen for it
+            for (EntityRef entity : entityManager.getEntitiesWith(ScenarioComponent.class)) {
+                scenario = entity;
+                break;
+            }
+        }
+    }
+
+    @ReceiveEvent
+    public void onScenarioActivated(OnActivatedComponent event, EntityRef entity, ScenarioComponent component) {
+        if (!scenario.exists()) {
+            scenario = entity;
+        }
+    }
+
+    @ReceiveEvent
+    public void onScenarioDeactivated(BeforeDeactivateComponent event, EntityRef entity, ScenarioComponent component) {
+        if (entity.equals(scenario)) {
+            scenario = EntityRef.NULL;
+        }
+    }
+
+    /**
+     * @return the scenario root entity, or {@link EntityRef#NULL} if no scenario exists
+     */
+    public EntityRef getScenario() {
+        return scenario;
+    }
+
+    public boolean hasScenario() {
+        return scenario.exists();
+    }
+}
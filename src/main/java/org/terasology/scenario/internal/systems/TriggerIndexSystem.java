@@ -0,0 +1,261 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.scenario.internal.systems;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.event.EventPriority;
+import org.terasology.engine.entitySystem.event.Priority;
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.registry.In;
+import org.terasology.engine.registry.Share;
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.event.ReceiveEvent;
+import org.terasology.scenario.components.ScenarioArgumentContainerComponent;
+import org.terasology.scenario.components.ScenarioComponent;
+import org.terasology.scenario.components.ScenarioHubToolUpdateComponent;
+import org.terasology.scenario.components.TriggerEventListComponent;
+import org.terasology.scenario.components.TriggerNameComponent;
+import org.terasology.scenario.components.information.ScenarioValueRegionComponent;
+import org.terasology.scenario.internal.events.LogicTreeAddEventEvent;
+import org.terasology.scenario.internal.events.LogicTreeDeleteEvent;
+import org.terasology.scenario.internal.events.LogicTreeMoveEntityEvent;
+import org.terasology.scenario.internal.events.ReplaceEntityFromConstructionStringsEvent;
+import org.terasology.scenario.internal.events.ReplaceEntityFromEncodedConstructionEvent;
+import org.terasology.scenario.internal.events.ScenarioImportedEvent;
+import org.terasology.scenario.internal.ui.LogicTree.LogicTreeValue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index from the secondary component of a scenario event (for example {@link
+ * org.terasology.scenario.components.events.ScenarioSecondaryBlockDestroyComponent}) to the event entities of the triggers that use it.
+ * <p>
+ * Allows {@link ScenarioRootManagementSystem} to find the triggers that need to be invoked for a scenario event without querying the entity
+ * manager. The index is built from the trigger list of the scenario the first time it is needed and then updated for the affected trigger
+ * whenever {@link EntityTreeSystem} changes the logic tree.
+ * <p>
+ * Region events are additionally looked up by the region of their "region" argument, so a player crossing a region boundary only touches
+ * the triggers listening on that region. Arguments are edited by replacing the whole event entity, so the region lookup is refreshed
+ * together with the trigger.
+ */
+@Share(TriggerIndexSystem.class)
+@RegisterSystem(RegisterMode.AUTHORITY)
+public class TriggerIndexSystem extends BaseComponentSystem {
+    private static final Logger logger = LoggerFactory.getLogger(TriggerIndexSystem.class);
+
+    @In
+    private ScenarioRootRegistry scenarioRoot;
+
+    private final Map<Class<? extends Component>, Set<EntityRef>> eventEntitiesByType = new HashMap<>();
+
+    /**
+     * Event entities of each indexed trigger, used to find what to remove when a trigger is re-indexed
+     */
+    private final Map<EntityRef, List<EntityRef>> triggerEvents = new HashMap<>();
+
+    /**
+     * Reverse lookup of the trigger that owns an indexed event entity
+     */
+    private final Map<EntityRef, EntityRef> eventTriggers = new HashMap<>();
+
+    /**
+     * Event entities of each region event type by the constant region of their "region" argument
+     */
+    private final Map<Class<? extends Component>, Map<EntityRef, Set<EntityRef>>> constantRegionEvents = new HashMap<>();
+
+    /**
+     * Event entities of each region event type whose "region" argument isn't a constant and needs to be evaluated
+     */
+    private final Map<Class<? extends Component>, Set<EntityRef>> dynamicRegionEvents = new HashMap<>();
+
+    private boolean built;
+
+    /**
+     * @param eventType the secondary component that identifies a kind of scenario event
+     * @return the event entities of all triggers that listen for that kind of event, the owner of each is the trigger
+     */
+    public Collection<EntityRef> getEventEntities(Class<? extends Component> eventType) {
+        if (!built) {
+            rebuild();
+        }
+        Set<EntityRef> eventEntities = eventEntitiesByType.get(eventType);
+        if (eventEntities == null) {
+            eventEntities = new LinkedHashSet<>();
+            eventEntitiesByType.put(eventType, eventEntities);
+            for (EntityRef trigger : getTriggers()) {
+                for (EntityRef eventEntity : triggerEvents.getOrDefault(trigger, Collections.emptyList())) {
+                    if (eventEntity.hasComponent(eventType)) {
+                        eventEntities.add(eventEntity);
+                    }
+                }
+            }
+        }
+        return Collections.unmodifiableSet(eventEntities);
+    }
+
+    public boolean hasEventEntities(Class<? extends Component> eventType) {
+        return !getEventEntities(eventType).isEmpty();
+    }
+
+    /**
+     * @param eventType the secondary component of a region event, the event entities must have a "region" argument
+     * @param region the region entity that the event occurred for
+     * @return the event entities whose region argument is the given region as a constant
+     */
+    public Collection<EntityRef> getRegionEventEntities(Class<? extends Component> eventType, EntityRef region) {
+        indexRegionEvents(eventType);
+        return Collections.unmodifiableSet(constantRegionEvents.get(eventType).getOrDefault(region, Collections.emptySet()));
+    }
+
+    /**
+     * @param eventType the secondary component of a region event, the event entities must have a "region" argument
+     * @return the event entities whose region argument is an expression that needs to be evaluated for every occurrence
+     */
+    public Collection<EntityRef> getDynamicRegionEventEntities(Class<? extends Component> eventType) {
+        indexRegionEvents(eventType);
+        return Collections.unmodifiableSet(dynamicRegionEvents.get(eventType));
+    }
+
+    @Priority(EventPriority.PRIORITY_TRIVIAL)
+    @ReceiveEvent
+    public void onLogicTreeAddEventEvent(LogicTreeAddEventEvent event, EntityRef entity, ScenarioHubToolUpdateComponent component) {
+        reindexTrigger(event.getTriggerEntity());
+    }
+
+    @Priority(EventPriority.PRIORITY_TRIVIAL)
+    @ReceiveEvent
+    public void onLogicTreeDeleteEvent(LogicTreeDeleteEvent event, EntityRef entity, ScenarioHubToolUpdateComponent component) {
+        if (event.getDeleteFromEntity().hasComponent(TriggerNameComponent.class)) { //Event/cond/action of a trigger
+            reindexTrigger(event.getDeleteFromEntity());
+        } else { //Whole trigger
+            removeTrigger(event.getDeleteEntity());
+        }
+    }
+
+    @Priority(EventPriority.PRIORITY_TRIVIAL)
+    @ReceiveEvent
+    public void onLogicTreeMoveEntityEvent(LogicTreeMoveEntityEvent event, EntityRef entity, ScenarioHubToolUpdateComponent component) {
+        if (event.getElementType() == LogicTreeValue.Type.EVENT || event.getElementType() == LogicTreeValue.Type.TRIGGER) {
+            built = false; //Event entities are kept in tree order, which a re-index of only the moved trigger would lose
+        }
+    }
+
+    @Priority(EventPriority.PRIORITY_TRIVIAL)
+    @ReceiveEvent
+    public void onReplaceEntityEvent(ReplaceEntityFromConstructionStringsEvent event, EntityRef entity,
+                                     ScenarioHubToolUpdateComponent component) {
+        reindexReplaced(event.getReplaced());
+    }
+
+    @Priority(EventPriority.PRIORITY_TRIVIAL)
+    @ReceiveEvent
+    public void onReplaceEntityEvent(ReplaceEntityFromEncodedConstructionEvent event, EntityRef entity,
+                                     ScenarioHubToolUpdateComponent component) {
+        reindexReplaced(event.getReplaced());
+    }
+
+    @Priority(EventPriority.PRIORITY_TRIVIAL)
+    @ReceiveEvent
+    public void onScenarioImported(ScenarioImportedEvent event, EntityRef entity, ScenarioComponent component) {
+        built = false; //Every trigger was replaced, so the index is built again on the next lookup
+    }
+
+    private void reindexReplaced(EntityRef replaced) {
+        EntityRef trigger = eventTriggers.get(replaced);
+        if (trigger != null) { //Only replaced events change the index, conditions and actions are not indexed
+            reindexTrigger(trigger);
+        }
+    }
+
+    private void indexRegionEvents(Class<? extends Component> eventType) {
+        Collection<EntityRef> eventEntities = getEventEntities(eventType);
+        if (constantRegionEvents.containsKey(eventType)) {
+            return;
+        }
+        Map<EntityRef, Set<EntityRef>> byRegion = new HashMap<>();
+        Set<EntityRef> dynamic = new LinkedHashSet<>();
+        for (EntityRef eventEntity : eventEntities) {
+            EntityRef regionArgument = eventEntity.getComponent(ScenarioArgumentContainerComponent.class).arguments.get("region");
+            ScenarioValueRegionComponent constant = regionArgument.getComponent(ScenarioValueRegionComponent.class);
+            if (constant == null) {
+                dynamic.add(eventEntity);
+            } else if (constant.regionEntity != null) { //No region selected can never match
+                byRegion.computeIfAbsent(constant.regionEntity, k -> new LinkedHashSet<>()).add(eventEntity);
+            }
+        }
+        constantRegionEvents.put(eventType, byRegion);
+        dynamicRegionEvents.put(eventType, dynamic);
+    }
+
+    private void rebuild() {
+        constantRegionEvents.clear();
+        dynamicRegionEvents.clear();
+        eventEntitiesByType.clear();
+        triggerEvents.clear();
+        eventTriggers.clear();
+        built = true;
+        for (EntityRef trigger : getTriggers()) {
+            indexTrigger(trigger);
+        }
+    }
+
+    private void reindexTrigger(EntityRef trigger) {
+        if (!built) {
+            return; //Will be picked up by the full build
+        }
+        removeTrigger(trigger);
+        indexTrigger(trigger);
+    }
+
+    private void indexTrigger(EntityRef trigger) {
+        TriggerEventListComponent events = trigger.getComponent(TriggerEventListComponent.class);
+        if (events == null) {
+            return;
+        }
+        List<EntityRef> indexed = new ArrayList<>(events.events);
+        triggerEvents.put(trigger, indexed);
+        for (EntityRef eventEntity : indexed) {
+            eventTriggers.put(eventEntity, trigger);
+            for (Map.Entry<Class<? extends Component>, Set<EntityRef>> entry : eventEntitiesByType.entrySet()) {
+                if (eventEntity.hasComponent(entry.getKey())) {
+                    entry.getValue().add(eventEntity);
+                }
+            }
+        }
+    }
+
+    private void removeTrigger(EntityRef trigger) {
+        //Region lookups are cheap to recreate and the logic tree is rarely edited
+        constantRegionEvents.clear();
+        dynamicRegionEvents.clear();
+        List<EntityRef> indexed = triggerEvents.remove(trigger);
+        if (indexed == null) {
+            return;
+        }
+        for (EntityRef eventEntity : indexed) {
+            eventTriggers.remove(eventEntity);
+            for (Set<EntityRef> eventEntities : eventEntitiesByType.values()) {
+                eventEntities.remove(eventEntity);
+            }
+        }
+    }
+
+    private List<EntityRef> getTriggers() {
+        EntityRef scenario = scenarioRoot.getScenario();
+        if (!scenario.exists()) {
+            return Collections.emptyList();
+        }
+        return scenario.getComponent(ScenarioComponent.class).triggerEntities;
+    }
+}
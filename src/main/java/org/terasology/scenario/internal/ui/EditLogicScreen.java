@@ -31,10 +31,11 @@ import org.terasology.scenario.components.ScenarioLogicLabelComponent;
 import org.terasology.scenario.components.actions.ScenarioIndicatorActionComponent;
 import org.terasology.scenario.components.conditionals.ScenarioIndicatorConditionalComponent;
 import org.terasology.scenario.components.events.ScenarioIndicatorEventComponent;
-import org.terasology.scenario.internal.events.ConvertScenarioEntityEvent;
-import org.terasology.scenario.internal.events.ReplaceEntityFromConstructionStringsEvent;
+import org.terasology.scenario.internal.events.ReplaceEntityFromEncodedConstructionEvent;
+import org.terasology.scenario.internal.systems.ConvertEntitySystem;
 import org.terasology.scenario.internal.ui.LogicTree.LogicTreeValue;
 import org.terasology.scenario.internal.utilities.ArgumentParser;
+import org.terasology.scenario.internal.utilities.LogicEntityTrees;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -59,6 +60,9 @@ public class EditLogicScreen extends CoreScreenLayer {
     @In
     private LocalPlayer localPlayer;
 
+    @In
+    private ConvertEntitySystem convertEntitySystem;
+
     private EntityRef scenarioEntity;
     private EntityRef targetEntity;
     private EntityRef temporaryEntity;
@@ -148,22 +152,19 @@ public class EditLogicScreen extends CoreScreenLayer {
 
     private void onOkButton(UIWidget button) {
         if (!temporaryEntity.equals(targetEntity)) {
-            ConvertScenarioEntityEvent convertEvent = new ConvertScenarioEntityEvent();
-            temporaryEntity.send(convertEvent);
-            ReplaceEntityFromConstructionStringsEvent event =
-                    new ReplaceEntityFromConstructionStringsEvent(targetEntity, convertEvent.getOutputList());
+            byte[] encoded = convertEntitySystem.encode(temporaryEntity);
+            LogicEntityTrees.destroyTemporaryTree(temporaryEntity);
+            ReplaceEntityFromEncodedConstructionEvent event = new ReplaceEntityFromEncodedConstructionEvent(targetEntity, encoded);
             hubtool.getEntity().send(event);
         } else {
-            if (temporaryEntity.exists()) {
-                temporaryEntity.destroy();
-            }
+            LogicEntityTrees.destroyTemporaryTree(temporaryEntity);
         }
         getManager().popScreen();
     }
 
     private void onCancelButton(UIWidget button) {
         if (temporaryEntity.exists()) {
-            temporaryEntity.destroy();
+            LogicEntityTrees.destroyTemporaryTree(temporaryEntity);
         }
         getManager().popScreen();
     }
@@ -195,14 +196,15 @@ public class EditLogicScreen extends CoreScreenLayer {
     private void setPrefabStart(EntityRef entity) {
         selectedPrefab = entity.getParentPrefab();
 
-        temporaryEntity = entity.copy();
+        temporaryEntity = LogicEntityTrees.copyTemporary(entityManager, entity);
         generateText();
     }
 
     private void setPrefab(Prefab value) {
         selectedPrefab = value;
 
-        temporaryEntity = entityManager.create(value);
+        LogicEntityTrees.destroyTemporaryTree(temporaryEntity);
+        temporaryEntity = LogicEntityTrees.createTemporary(entityManager, value);
         parser.parseDefaults(temporaryEntity);
         generateText();
     }
@@ -221,7 +223,10 @@ public class EditLogicScreen extends CoreScreenLayer {
     }
 
     public void setVariable(String key, EntityRef value) {
-        temporaryEntity.getComponent(ScenarioArgumentContainerComponent.class).arguments.put(key, value);
+        EntityRef replaced = temporaryEntity.getComponent(ScenarioArgumentContainerComponent.class).arguments.put(key, value);
+        if (replaced != null && !replaced.equals(value)) {
+            LogicEntityTrees.destroyTemporaryTree(replaced);
+        }
         temporaryEntity.saveComponent(temporaryEntity.getComponent(ScenarioArgumentContainerComponent.class));
 
         generateText();
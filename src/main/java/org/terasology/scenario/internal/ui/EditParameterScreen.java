@@ -51,6 +51,7 @@ import org.terasology.scenario.components.information.ScenarioValueStringCompone
 import org.terasology.scenario.components.regions.RegionColorComponent;
 import org.terasology.scenario.components.regions.RegionNameComponent;
 import org.terasology.scenario.internal.utilities.ArgumentParser;
+import org.terasology.scenario.internal.utilities.LogicEntityTrees;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -80,6 +81,9 @@ public class EditParameterScreen extends CoreScreenLayer {
     @In
     BlockManager blockManager;
 
+    @In
+    ScenarioRootRegistry scenarioRoot;
+
     private CoreScreenLayer returnScreen;
     private String key;
     private EntityRef baseEntity;
@@ -140,7 +144,7 @@ public class EditParameterScreen extends CoreScreenLayer {
     public void setupParameter(String k, EntityRef entity, CoreScreenLayer coreScreenLayer, ArgumentParser argumentParser) {
         this.key = k;
         this.baseEntity = entity;
-        this.tempEntity = baseEntity.copy();
+        this.tempEntity = null; //Copied from the base entity in setPrefabStart
         this.returnScreen = coreScreenLayer;
         this.parser = argumentParser;
 
@@ -249,23 +253,20 @@ public class EditParameterScreen extends CoreScreenLayer {
                 ((EditParameterScreen) returnScreen).setVariable(key, tempEntity);
             }
         } else {
-            if (tempEntity.exists()) {
-                tempEntity.destroy();
-            }
+            LogicEntityTrees.destroyTemporaryTree(tempEntity);
         }
         getManager().popScreen();
     }
 
     private void onCancelButton(UIWidget button) {
-        if (tempEntity.exists()) {
-            tempEntity.destroy();
-        }
+        LogicEntityTrees.destroyTemporaryTree(tempEntity);
         getManager().popScreen();
     }
 
     private void setPrefab(Prefab value) {
         selectedPrefab = value;
-        tempEntity = entityManager.create(value);
+        LogicEntityTrees.destroyTemporaryTree(tempEntity);
+        tempEntity = LogicEntityTrees.createTemporary(entityManager, value);
         parser.parseDefaults(tempEntity);
 
         setupInteraction();
@@ -273,7 +274,7 @@ public class EditParameterScreen extends CoreScreenLayer {
 
     private void setPrefabStart(EntityRef entity) {
         selectedPrefab = entity.getParentPrefab();
-        tempEntity = entity.copy();
+        tempEntity = LogicEntityTrees.copyTemporary(entityManager, entity);
         setupInteraction();
     }
 
@@ -321,11 +322,8 @@ public class EditParameterScreen extends CoreScreenLayer {
             emptyVariables();
 
             regionDropdown = new UIDropdownScrollable<>();
-            if (entityManager.getEntitiesWith(ScenarioComponent.class).iterator().hasNext()) {
-                EntityRef scenario = entityManager.getEntitiesWith(ScenarioComponent.class).iterator().next();
-                if (scenario == null) {
-                    return;
-                }
+            EntityRef scenario = scenarioRoot.getScenario();
+            if (scenario.exists()) {
                 List<EntityRef> regions = scenario.getComponent(ScenarioComponent.class).regionEntities;
                 regionDropdown.setOptions(regions);
                 regionDropdown.setOptionRenderer(new AbstractItemRenderer<EntityRef>() {
@@ -357,7 +355,10 @@ public class EditParameterScreen extends CoreScreenLayer {
     }
 
     private void setVariable(String k, EntityRef value) {
-        tempEntity.getComponent(ScenarioArgumentContainerComponent.class).arguments.put(k, value);
+        EntityRef replaced = tempEntity.getComponent(ScenarioArgumentContainerComponent.class).arguments.put(k, value);
+        if (replaced != null && !replaced.equals(value)) {
+            LogicEntityTrees.destroyTemporaryTree(replaced);
+        }
         tempEntity.saveComponent(tempEntity.getComponent(ScenarioArgumentContainerComponent.class));
 
         setupInteraction();
@@ -87,6 +87,9 @@ public class HubToolScreen extends BaseInteractionScreen {
     @In
     private ArgumentParser argumentParser;
 
+    @In
+    private ScenarioRootRegistry scenarioRoot;
+
     private final Logger logger = LoggerFactory.getLogger(HubToolScreen.class);
 
 
@@ -203,10 +206,9 @@ public class HubToolScreen extends BaseInteractionScreen {
                 return menu;
             });
 
-            Iterable<EntityRef> scenario = entityManager.getEntitiesWith(ScenarioComponent.class); // Checks for existing Scenario
+            EntityRef main = scenarioRoot.getScenario();
 
-            if (scenario.iterator().hasNext()) { //If scenario exists
-                EntityRef main = scenario.iterator().next();
+            if (main.exists()) { //If scenario exists
                 if (scenarioEntity == null || !scenarioEntity.equals(main)) {
                     scenarioEntity = main;
                 }
@@ -245,10 +247,9 @@ public class HubToolScreen extends BaseInteractionScreen {
                 return logicTreeMenuTreeBuilder.createPrimaryContextMenu(node);
             });
 
-            Iterable<EntityRef> scenario = entityManager.getEntitiesWith(ScenarioComponent.class); // Checks for existing Scenario
+            EntityRef main = scenarioRoot.getScenario();
 
-            if (scenario.iterator().hasNext()) { //If scenario exists
-                EntityRef main = scenario.iterator().next();
+            if (main.exists()) { //If scenario exists
                 if (scenarioEntity == null || !scenarioEntity.equals(main)) {
                     scenarioEntity = main;
                 }
@@ -409,13 +410,12 @@ public class HubToolScreen extends BaseInteractionScreen {
     @Override
     public void onOpened() {
         super.onOpened();
-        Iterable<EntityRef> scenario = entityManager.getEntitiesWith(ScenarioComponent.class);
+        EntityRef main = scenarioRoot.getScenario();
         ScenarioHubToolUpdateComponent component = getEntity().getComponent(ScenarioHubToolUpdateComponent.class);
         component.localScreenID = this.getId();
         getEntity().saveComponent(component);
 
-        if (scenario.iterator().hasNext()) {
-            EntityRef main = scenario.iterator().next();
+        if (main.exists()) {
             if (scenarioEntity == null || !scenarioEntity.equals(main)) {
                 scenarioEntity = main;
             }
@@ -28,6 +28,7 @@ import org.terasology.scenario.internal.ui.EditParameterScreen;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -48,10 +49,42 @@ public class ArgumentParser extends BaseComponentSystem {
     @In
     private AssetManager assetManager;
 
-    private List<String> keys;
+    /**
+     * Matches an argument of a logic text, for example [amount:Integer], with the key and type as the group
+     */
+    private static final Pattern ARGUMENT_PATTERN = Pattern.compile("\\[(.*?)\\]");
+
+    /**
+     * Prefab of the constant that an argument of each type starts out as
+     */
+    private static final Map<String, String> DEFAULT_PREFABS = new HashMap<>();
+
+    static {
+        DEFAULT_PREFABS.put("Integer", "scenario:scenarioConstantInt");
+        DEFAULT_PREFABS.put("Block", "scenario:scenarioConstantBlock");
+        DEFAULT_PREFABS.put("Player", "scenario:scenarioConstantPlayer");
+        DEFAULT_PREFABS.put("String", "scenario:scenarioConstantString");
+        DEFAULT_PREFABS.put("Item", "scenario:scenarioConstantItemPrefab");
+        DEFAULT_PREFABS.put("Comparator", "scenario:scenarioConstantComparator");
+        DEFAULT_PREFABS.put("Region", "scenario:scenarioConstantRegion");
+    }
+
+    /**
+     * Parsed logic texts, the texts come from the small set of logic prefabs so they are only parsed once
+     */
+    private final Map<String, LogicTextTemplate> templates = new HashMap<>();
 
     private final Color specialColor = new Color(0, 191, 255);
 
+    private LogicTextTemplate getTemplate(String text) {
+        LogicTextTemplate template = templates.get(text);
+        if (template == null) {
+            template = new LogicTextTemplate(text);
+            templates.put(text, template);
+        }
+        return template;
+    }
+
     /**
      * Takes in an entity with a textComponent and argumentContainerComponent and parses the arguments from the text and sets the default
      * values in the argument container and saves the entity
@@ -63,38 +96,19 @@ public class ArgumentParser extends BaseComponentSystem {
             args.arguments = new HashMap<>();
         }
 
-        Pattern pattern = Pattern.compile("\\[(.*?)\\]");
-        Matcher matcher = pattern.matcher(text);
-        while (matcher.find()) {
-            String group = matcher.group(1);
-            int indexColon = group.indexOf(":");
-            String key = group.substring(0, indexColon);
-            String type = group.substring(indexColon + 1);
-            if (type.equals("Integer")) {
-                args.arguments.put(key, entityManager.create(assetManager.getAsset("scenario:scenarioConstantInt",
-                        Prefab.class).get()));
-            } else if (type.equals("Block")) {
-                args.arguments.put(key, entityManager.create(assetManager.getAsset("scenario:scenarioConstantBlock",
-                        Prefab.class).get()));
-            } else if (type.equals("Player")) {
-                args.arguments.put(key, entityManager.create(assetManager.getAsset("scenario:scenarioConstantPlayer",
-                        Prefab.class).get()));
-            } else if (type.equals("String")) {
-                args.arguments.put(key, entityManager.create(assetManager.getAsset("scenario:scenarioConstantString",
-                        Prefab.class).get()));
-            } else if (type.equals("Item")) {
-                args.arguments.put(key, entityManager.create(assetManager.getAsset("scenario" +
-                        ":scenarioConstantItemPrefab", Prefab.class).get()));
-            } else if (type.equals("Comparator")) {
-                args.arguments.put(key, entityManager.create(assetManager.getAsset("scenario" +
-                        ":scenarioConstantComparator", Prefab.class).get()));
-            } else if (type.equals("Region")) {
-                args.arguments.put(key, entityManager.create(assetManager.getAsset("scenario:scenarioConstantRegion",
-                        Prefab.class).get()));
-            } else {
+        LogicTextTemplate template = getTemplate(text);
+        for (int i = 0; i < template.keys.size(); i++) {
+            String prefabUri = DEFAULT_PREFABS.get(template.types.get(i));
+            if (prefabUri == null) {
                 //String parsed incorrectly, should throw some kind of exception probably
                 return;
             }
+            Prefab prefab = assetManager.getAsset(prefabUri, Prefab.class).get();
+            if (LogicEntityTrees.isTemporary(entity)) { //Defaults of an entity that is being edited are temporary as well
+                args.arguments.put(template.keys.get(i), LogicEntityTrees.createTemporary(entityManager, prefab));
+            } else {
+                args.arguments.put(template.keys.get(i), entityManager.create(prefab));
+            }
         }
 
         if (args != null) {
@@ -109,29 +123,15 @@ public class ArgumentParser extends BaseComponentSystem {
     public String parseDisplayText(EntityRef entity) {
         String text = entity.getComponent(ScenarioLogicTextComponent.class).text;
         ScenarioArgumentContainerComponent args = entity.getComponent(ScenarioArgumentContainerComponent.class);
-        Pattern pattern = Pattern.compile("\\[(.*?)\\]");
-        Matcher matcher = pattern.matcher(text);
-
-        List<String> replacements = new ArrayList<>();
-        while (matcher.find()) {
-            String group = matcher.group(1);
-            int indexColon = group.indexOf(":");
-            String key = group.substring(0, indexColon);
-            String type = group.substring(indexColon + 1);
-            EvaluateDisplayEvent event = new EvaluateDisplayEvent();
-            args.arguments.get(key).send(event);
-            replacements.add(event.getResult());
-        }
+        LogicTextTemplate template = getTemplate(text);
 
-        Pattern replacePattern = Pattern.compile("\\[.*?\\]");
-        Matcher replaceMatcher = replacePattern.matcher(text);
-        StringBuffer sb = new StringBuffer();
-        int index = 0;
-        while (replaceMatcher.find()) {
-            replaceMatcher.appendReplacement(sb, FontColor.getColored(replacements.get(index), specialColor));
-            index++;
+        StringBuilder sb = new StringBuilder(template.segments.get(0));
+        for (int i = 0; i < template.keys.size(); i++) {
+            EvaluateDisplayEvent event = new EvaluateDisplayEvent();
+            args.arguments.get(template.keys.get(i)).send(event);
+            sb.append(FontColor.getColored(event.getResult(), specialColor));
+            sb.append(template.segments.get(i + 1));
         }
-        replaceMatcher.appendTail(sb);
         return sb.toString();
     }
 
@@ -144,49 +144,51 @@ public class ArgumentParser extends BaseComponentSystem {
         List<UIWidget> output = new ArrayList<>();
         String text = entity.getComponent(ScenarioLogicTextComponent.class).text;
         ScenarioArgumentContainerComponent args = entity.getComponent(ScenarioArgumentContainerComponent.class);
-        Pattern pattern = Pattern.compile("\\[(.*?)\\]");
-        Matcher matcher = pattern.matcher(text);
-        List<String> replacements = new ArrayList<>();
-        keys = new ArrayList<>();
-        while (matcher.find()) {
-            String group = matcher.group(1);
-            int indexColon = group.indexOf(":");
-            String key = group.substring(0, indexColon);
-            String type = group.substring(indexColon + 1);
-            EvaluateDisplayEvent event = new EvaluateDisplayEvent();
-            args.arguments.get(key).send(event);
-            replacements.add(event.getResult());
-            keys.add(key);
-        }
-
-        Pattern replacePattern = Pattern.compile("\\[.*?\\]");
-        Matcher replaceMatcher = replacePattern.matcher(text);
-        int index = 0;
-        int end = 0;
-        int start = 0;
-        while (replaceMatcher.find()) {
-            start = replaceMatcher.start();
+        LogicTextTemplate template = getTemplate(text);
+        for (int i = 0; i < template.keys.size(); i++) {
             UILabel label = new UILabel();
-            label.setText(text.substring(end, start));
+            label.setText(template.segments.get(i));
             output.add(label);
 
-            end = replaceMatcher.end();
-            UIButton button = new UIButton();
-            button.setText(FontColor.getColored(replacements.get(index), specialColor));
-            String tempKey = keys.get(index);
+            String tempKey = template.keys.get(i);
             EntityRef tempEntity = args.arguments.get(tempKey);
+            EvaluateDisplayEvent event = new EvaluateDisplayEvent();
+            tempEntity.send(event);
+            UIButton button = new UIButton();
+            button.setText(FontColor.getColored(event.getResult(), specialColor));
             button.subscribe(b -> {
                 EditParameterScreen screen = editScreen.getManager().pushScreen(EditParameterScreen.ASSET_URI,
                         EditParameterScreen.class);
                 screen.setupParameter(tempKey, tempEntity, editScreen, this);
             });
             output.add(button);
-            index++;
-
         }
         UILabel label = new UILabel();
-        label.setText(text.substring(end));
+        label.setText(template.segments.get(template.keys.size()));
         output.add(label);
         return output;
     }
+
+    /**
+     * A logic text split into its arguments and the plain text around them, there is always one more segment than there are arguments
+     */
+    private static class LogicTextTemplate {
+        private final List<String> segments = new ArrayList<>();
+        private final List<String> keys = new ArrayList<>();
+        private final List<String> types = new ArrayList<>();
+
+        LogicTextTemplate(String text) {
+            Matcher matcher = ARGUMENT_PATTERN.matcher(text);
+            int end = 0;
+            while (matcher.find()) {
+                segments.add(text.substring(end, matcher.start()));
+                end = matcher.end();
+                String group = matcher.group(1);
+                int indexColon = group.indexOf(":");
+                keys.add(group.substring(0, indexColon));
+                types.add(group.substring(indexColon + 1));
+            }
+            segments.add(text.substring(end));
+        }
+    }
 }
@@ -0,0 +1,361 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.scenario.internal.utilities;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Compact binary form of the construction strings of a logic entity, used to send edited logic entities from the client to the server
+ * <p>
+ * Construction strings (see {@link org.terasology.scenario.internal.systems.ConvertEntitySystem}) repeat the whole key path of an argument
+ * on every line, so their size grows with the square of the depth of the tree. As the lines are always in depth first order the path of a
+ * line is the path of the line before it cut down to its depth, so only the depth and the last key are encoded. Prefab names and keys are
+ * written as their id in the {@link LogicPrefabTable} that client and server share, numbers are written as varints.
+ * <p>
+ * Layout: version byte, varint version of the prefab table, varint line count, then per line the varint depth, the name of the key (not
+ * present for the root), a kind byte and the payload of the kind. Names are written as a varint of their table id plus one, or as 0
+ * followed by the name as a string if they aren't in the table. Strings are a varint length and the UTF-8 bytes
+ * <p>
+ * Both forms can be read line by line with a {@link Visitor}, which only gets the depth and last key of each line. The binary form is sent
+ * by clients, so it is checked while it is read and rejected with an {@link IllegalArgumentException} if it is malformed or was encoded
+ * with a different prefab table
+ */
+public final class LogicEntityCodec {
+    public static final byte VERSION = 2;
+
+    private static final String PREFAB_MARKER = "[PREFAB]";
+    private static final String VALUE_MARKER = "[VALUE]";
+
+    private static final byte KIND_PREFAB = 0;
+    private static final byte KIND_STRING = 1;
+    private static final byte KIND_INT = 2;
+    private static final byte KIND_LOCAL_REGION = 3;
+
+    /**
+     * Reference of a name that isn't in the prefab table and follows as a string
+     */
+    private static final int INLINE_NAME = 0;
+
+    private LogicEntityCodec() {
+    }
+
+    /**
+     * Receives the lines of construction strings one at a time, in the order they were created in
+     * <p>
+     * The depth is the number of keys in the path of the line, the root has depth 0 and no key. The path of a line is always the path of
+     * the line before it cut down to its depth minus one followed by its own key
+     */
+    public interface Visitor {
+        void visitPrefab(int depth, String key, String prefab);
+
+        void visitValue(int depth, String key, String value);
+    }
+
+    /**
+     * @param constructionStrings the construction strings of a logic entity, in the order they were created in
+     * @param table the prefab table that the reader of the binary form has as well
+     * @return the binary form of the construction strings
+     */
+    public static byte[] encode(List<String> constructionStrings, LogicPrefabTable table) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        output.write(VERSION);
+        writeVarInt(output, table.getVersion());
+        writeVarInt(output, constructionStrings.size());
+        parse(constructionStrings, new Visitor() {
+            @Override
+            public void visitPrefab(int depth, String key, String prefab) {
+                writeKey(depth, key);
+                output.write(KIND_PREFAB);
+                writeName(output, prefab, table.getPrefabId(prefab));
+            }
+
+            @Override
+            public void visitValue(int depth, String key, String value) {
+                writeKey(depth, key);
+                writeValue(output, value);
+            }
+
+            private void writeKey(int depth, String key) {
+                writeVarInt(output, depth);
+                if (depth > 0) {
+                    writeName(output, key, table.getKeyId(key));
+                }
+            }
+        });
+        return output.toByteArray();
+    }
+
+    /**
+     * @param encoded the binary form of construction strings created by {@link #encode(List, LogicPrefabTable)}
+     * @param table the prefab table the construction strings were encoded with
+     * @return the construction strings, the same as the ones that were encoded
+     */
+    public static List<String> decode(byte[] encoded, LogicPrefabTable table) {
+        List<String> constructionStrings = new ArrayList<>();
+        List<String> path = new ArrayList<>();
+        decode(encoded, table, new Visitor() {
+            @Override
+            public void visitPrefab(int depth, String key, String prefab) {
+                constructionStrings.add(toLine(depth, key) + PREFAB_MARKER + prefab);
+            }
+
+            @Override
+            public void visitValue(int depth, String key, String value) {
+                constructionStrings.add(toLine(depth, key) + VALUE_MARKER + value);
+            }
+
+            private String toLine(int depth, String key) {
+                while (path.size() >= depth && !path.isEmpty()) {
+                    path.remove(path.size() - 1);
+                }
+                if (depth > 0) {
+                    path.add(key);
+                }
+                StringBuilder line = new StringBuilder();
+                for (String pathKey : path) {
+                    line.append('{').append(pathKey).append('}');
+                }
+                return line.toString();
+            }
+        });
+        return constructionStrings;
+    }
+
+    /**
+     * Reads the binary form of construction strings, passing each line to the visitor without creating the strings
+     *
+     * @param encoded the binary form of construction strings created by {@link #encode(List, LogicPrefabTable)}
+     * @param table the prefab table the construction strings were encoded with
+     * @param visitor receives each of the lines
+     * @throws IllegalArgumentException if the bytes are malformed or were encoded with another prefab table, the visitor might already
+     *         have received the lines before the error
+     */
+    public static void decode(byte[] encoded, LogicPrefabTable table, Visitor visitor) {
+        try {
+            decodeBuffer(ByteBuffer.wrap(encoded), table, visitor);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Encoded logic entity is truncated", e);
+        }
+    }
+
+    private static void decodeBuffer(ByteBuffer buffer, LogicPrefabTable table, Visitor visitor) {
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported logic entity encoding version " + version);
+        }
+        int tableVersion = readVarInt(buffer);
+        if (tableVersion != table.getVersion()) {
+            throw new IllegalArgumentException("Logic entity was encoded with a different prefab table, the modules probably differ");
+        }
+
+        int lineCount = readCount(buffer);
+        int previousDepth = -1;
+        for (int i = 0; i < lineCount; i++) {
+            int depth = readVarInt(buffer);
+            if (depth < 0 || depth > previousDepth + 1 || (i == 0) != (depth == 0)) {
+                throw new IllegalArgumentException("Construction string " + i + " is not in depth first order below a single root");
+            }
+            previousDepth = depth;
+            String key = depth > 0 ? readName(buffer, table::getKey) : null;
+
+            byte kind = buffer.get();
+            if (depth == 0 && kind != KIND_PREFAB) {
+                throw new IllegalArgumentException("Construction strings don't start with a prefab");
+            }
+            switch (kind) {
+                case KIND_PREFAB:
+                    visitor.visitPrefab(depth, key, readName(buffer, table::getPrefab));
+                    break;
+                case KIND_STRING:
+                    visitor.visitValue(depth, key, readString(buffer));
+                    break;
+                case KIND_INT:
+                    visitor.visitValue(depth, key, Integer.toString(readZigZag(buffer)));
+                    break;
+                case KIND_LOCAL_REGION:
+                    visitor.visitValue(depth, key, "x" + readZigZag(buffer));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown construction string kind " + kind);
+            }
+        }
+    }
+
+    /**
+     * Reads construction strings, passing each line to the visitor with only the last key of its path
+     *
+     * @param constructionStrings the construction strings of a logic entity, in the order they were created in
+     * @param visitor receives each of the lines
+     */
+    public static void parse(List<String> constructionStrings, Visitor visitor) {
+        for (String line : constructionStrings) {
+            int depth = 0;
+            String key = null;
+            int index = 0;
+            while (line.startsWith("{", index)) {
+                int end = line.indexOf('}', index);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unclosed key in construction string: " + line);
+                }
+                key = line.substring(index + 1, end);
+                depth++;
+                index = end + 1;
+            }
+
+            if (line.startsWith(PREFAB_MARKER, index)) {
+                visitor.visitPrefab(depth, key, line.substring(index + PREFAB_MARKER.length()));
+            } else if (line.startsWith(VALUE_MARKER, index)) {
+                visitor.visitValue(depth, key, line.substring(index + VALUE_MARKER.length()));
+            } else {
+                throw new IllegalArgumentException("Not a construction string: " + line);
+            }
+        }
+    }
+
+    /**
+     * Writes numbers (integers and the ids of regions without a network id) as numbers, as long as they come back as the same text
+     */
+    private static void writeValue(ByteArrayOutputStream output, String value) {
+        Integer number = parseCanonicalInt(value);
+        if (number != null) {
+            output.write(KIND_INT);
+            writeZigZag(output, number);
+            return;
+        }
+        if (value.startsWith("x")) {
+            number = parseCanonicalInt(value.substring(1));
+            if (number != null) {
+                output.write(KIND_LOCAL_REGION);
+                writeZigZag(output, number);
+                return;
+            }
+        }
+        output.write(KIND_STRING);
+        writeString(output, value);
+    }
+
+    private static void writeName(ByteArrayOutputStream output, String name, Integer id) {
+        if (id == null) {
+            writeVarInt(output, INLINE_NAME);
+            writeString(output, name);
+        } else {
+            writeVarInt(output, id + 1);
+        }
+    }
+
+    /**
+     * @param table the name of each id of the table
+     */
+    private static String readName(ByteBuffer buffer, IntFunction<String> table) {
+        int reference = readVarInt(buffer);
+        return reference == INLINE_NAME ? readString(buffer) : table.apply(reference - 1);
+    }
+
+    private static void writeString(ByteArrayOutputStream output, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(output, bytes.length);
+        output.write(bytes, 0, bytes.length);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[readCount(buffer)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static Integer parseCanonicalInt(String value) {
+        try {
+            int number = Integer.parseInt(value);
+            return Integer.toString(number).equals(value) ? number : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads a dictionary of varint count followed by varint length and UTF-8 bytes per entry, checking the sizes against the remaining bytes
+     * before allocating anything
+     */
+    static String[] readDictionary(ByteBuffer buffer) {
+        String[] dictionary = new String[readCount(buffer)];
+        for (int i = 0; i < dictionary.length; i++) {
+            byte[] bytes = new byte[readCount(buffer)];
+            buffer.get(bytes);
+            dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return dictionary;
+    }
+
+    /**
+     * Reads a varint dictionary index
+     *
+     * @return the dictionary entry
+     */
+    static String readEntry(ByteBuffer buffer, String[] dictionary) {
+        int index = readVarInt(buffer);
+        if (index < 0 || index >= dictionary.length) {
+            throw new IllegalArgumentException("Dictionary index " + index + " out of range");
+        }
+        return dictionary[index];
+    }
+
+    /**
+     * Reads a varint count or length, which can't be larger than the remaining bytes as every counted element takes at least one byte
+     */
+    static int readCount(ByteBuffer buffer) {
+        int count = readVarInt(buffer);
+        if (count < 0 || count > buffer.remaining()) {
+            throw new IllegalArgumentException("Count " + count + " exceeds the remaining " + buffer.remaining() + " bytes");
+        }
+        return count;
+    }
+
+    static int getIndex(String entry, List<String> dictionary, Map<String, Integer> indices) {
+        Integer index = indices.get(entry);
+        if (index == null) {
+            index = dictionary.size();
+            dictionary.add(entry);
+            indices.put(entry, index);
+        }
+        return index;
+    }
+
+    static void writeVarInt(ByteArrayOutputStream output, int value) {
+        while ((value & ~0x7F) != 0) {
+            output.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.write(value);
+    }
+
+    static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift > 28) {
+                throw new IllegalArgumentException("Malformed varint");
+            }
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    static void writeZigZag(ByteArrayOutputStream output, int value) {
+        writeVarInt(output, (value << 1) ^ (value >> 31));
+    }
+
+    static int readZigZag(ByteBuffer buffer) {
+        int value = readVarInt(buffer);
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,133 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.scenario.internal.utilities;
+
+import org.terasology.engine.entitySystem.entity.EntityBuilder;
+import org.terasology.engine.entitySystem.entity.EntityManager;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.prefab.Prefab;
+import org.terasology.scenario.components.ScenarioArgumentContainerComponent;
+import org.terasology.scenario.components.ScenarioTemporaryLogicComponent;
+import org.terasology.scenario.components.TriggerActionListComponent;
+import org.terasology.scenario.components.TriggerConditionListComponent;
+import org.terasology.scenario.components.TriggerEventListComponent;
+import org.terasology.scenario.components.TriggerNameComponent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Helpers for handling a logic entity together with the argument entities below it in its {@link ScenarioArgumentContainerComponent}
+ * <p>
+ * The logic entities that are edited in the logic screens are temporary, non persistent, copies marked with the {@link
+ * ScenarioTemporaryLogicComponent}. A copy shares the logic tree arguments of the entity it was copied from but gets its own copies of
+ * temporary arguments, so every temporary entity belongs to exactly one screen or temporary parent. Temporary entities are only ever
+ * destroyed together with the temporary entities below them and never the entities of the actual logic tree
+ */
+public final class LogicEntityTrees {
+    private LogicEntityTrees() {
+    }
+
+    /**
+     * Destroys a logic entity and all of the argument entities below it
+     */
+    public static void destroyTree(EntityRef entity) {
+        if (entity == null || !entity.exists()) {
+            return;
+        }
+        forEachArgument(entity, LogicEntityTrees::destroyTree);
+        entity.destroy();
+    }
+
+    /**
+     * Destroys a trigger together with its events, conditionals and actions and all of their argument entities
+     */
+    public static void destroyTrigger(EntityRef trigger) {
+        if (!trigger.exists()) {
+            return;
+        }
+        List<EntityRef> logicEntities = new ArrayList<>();
+        TriggerEventListComponent events = trigger.getComponent(TriggerEventListComponent.class);
+        if (events != null) {
+            logicEntities.addAll(events.events);
+        }
+        TriggerConditionListComponent conditions = trigger.getComponent(TriggerConditionListComponent.class);
+        if (conditions != null) {
+            logicEntities.addAll(conditions.conditions);
+        }
+        TriggerActionListComponent actions = trigger.getComponent(TriggerActionListComponent.class);
+        if (actions != null) {
+            logicEntities.addAll(actions.actions);
+        }
+        TriggerNameComponent name = trigger.getComponent(TriggerNameComponent.class);
+        if (name != null) {
+            logicEntities.add(name.entityForEvent);
+            logicEntities.add(name.entityForCondition);
+            logicEntities.add(name.entityForAction);
+        }
+        for (EntityRef logicEntity : logicEntities) {
+            if (logicEntity != null) {
+                destroyTree(logicEntity);
+            }
+        }
+        trigger.destroy();
+    }
+
+    /**
+     * Destroys a temporary logic entity and the temporary argument entities below it, entities of the logic tree and the entities below
+     * them are left untouched
+     */
+    public static void destroyTemporaryTree(EntityRef entity) {
+        if (entity == null || !entity.hasComponent(ScenarioTemporaryLogicComponent.class)) {
+            return;
+        }
+        forEachArgument(entity, LogicEntityTrees::destroyTemporaryTree);
+        entity.destroy();
+    }
+
+    /**
+     * Creates a temporary copy of a logic entity for editing, the copy shares the logic tree arguments of the original and copies its
+     * temporary arguments, so that destroying either temporary tree leaves the other one intact
+     */
+    public static EntityRef copyTemporary(EntityManager entityManager, EntityRef entity) {
+        EntityBuilder builder = entityManager.newBuilder(entity.getParentPrefab());
+        builder.addComponents(entityManager.copyComponents(entity).values());
+        ScenarioArgumentContainerComponent args = builder.getComponent(ScenarioArgumentContainerComponent.class);
+        if (args != null && args.arguments != null) {
+            for (Map.Entry<String, EntityRef> argument : args.arguments.entrySet()) {
+                if (argument.getValue() != null && isTemporary(argument.getValue())) {
+                    argument.setValue(copyTemporary(entityManager, argument.getValue()));
+                }
+            }
+        }
+        return buildTemporary(builder);
+    }
+
+    /**
+     * Creates a new temporary logic entity for editing
+     */
+    public static EntityRef createTemporary(EntityManager entityManager, Prefab prefab) {
+        return buildTemporary(entityManager.newBuilder(prefab));
+    }
+
+    public static boolean isTemporary(EntityRef entity) {
+        return entity.hasComponent(ScenarioTemporaryLogicComponent.class);
+    }
+
+    private static EntityRef buildTemporary(EntityBuilder builder) {
+        builder.setPersistent(false);
+        builder.addOrSaveComponent(new ScenarioTemporaryLogicComponent());
+        return builder.build();
+    }
+
+    private static void forEachArgument(EntityRef entity, Consumer<EntityRef> action) {
+        ScenarioArgumentContainerComponent args = entity.getComponent(ScenarioArgumentContainerComponent.class);
+        if (args != null && args.arguments != null) {
+            for (EntityRef argument : new ArrayList<>(args.arguments.values())) {
+                action.accept(argument);
+            }
+        }
+    }
+}
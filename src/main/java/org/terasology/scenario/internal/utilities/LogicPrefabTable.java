@@ -0,0 +1,114 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.scenario.internal.utilities;
+
+import org.terasology.engine.entitySystem.prefab.Prefab;
+import org.terasology.scenario.components.ScenarioLogicTextComponent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Ids of the logic prefabs and of the argument keys of their logic texts, so that {@link LogicEntityCodec} can refer to them by number
+ * instead of by name. Client and server build the table from the prefabs they have loaded, the ids are the positions of the names in sorted
+ * order
+ * <p>
+ * The version is a checksum of all names of the table, two tables only have the same version if they have the same prefabs and keys, so
+ * an encoding made with a different table is recognised and rejected instead of being read with the wrong names
+ */
+public final class LogicPrefabTable {
+    /**
+     * Matches an argument of a logic text, for example [amount:Integer], with the key and type as the group
+     */
+    private static final Pattern ARGUMENT_PATTERN = Pattern.compile("\\[(.*?)\\]");
+
+    private final List<String> prefabs;
+    private final List<String> keys;
+    private final Map<String, Integer> prefabIds = new HashMap<>();
+    private final Map<String, Integer> keyIds = new HashMap<>();
+    private final int version;
+
+    public LogicPrefabTable(Collection<String> prefabNames, Collection<String> argumentKeys) {
+        prefabs = new ArrayList<>(new TreeSet<>(prefabNames));
+        keys = new ArrayList<>(new TreeSet<>(argumentKeys));
+        for (int i = 0; i < prefabs.size(); i++) {
+            prefabIds.put(prefabs.get(i), i);
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            keyIds.put(keys.get(i), i);
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update((String.join("\0", prefabs) + '\1' + String.join("\0", keys)).getBytes(StandardCharsets.UTF_8));
+        version = (int) checksum.getValue();
+    }
+
+    /**
+     * @param logicPrefabs the prefabs of all logic entities, the prefabs with a {@link ScenarioLogicTextComponent} also add the keys of
+     *         their arguments
+     */
+    public static LogicPrefabTable fromPrefabs(Iterable<Prefab> logicPrefabs) {
+        List<String> prefabNames = new ArrayList<>();
+        Set<String> argumentKeys = new TreeSet<>();
+        for (Prefab prefab : logicPrefabs) {
+            prefabNames.add(prefab.getName());
+            ScenarioLogicTextComponent text = prefab.getComponent(ScenarioLogicTextComponent.class);
+            if (text != null && text.text != null) {
+                Matcher matcher = ARGUMENT_PATTERN.matcher(text.text);
+                while (matcher.find()) {
+                    String argument = matcher.group(1);
+                    int indexColon = argument.indexOf(':');
+                    argumentKeys.add(indexColon < 0 ? argument : argument.substring(0, indexColon));
+                }
+            }
+        }
+        return new LogicPrefabTable(prefabNames, argumentKeys);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the id of the prefab, or null if it isn't in the table
+     */
+    public Integer getPrefabId(String prefab) {
+        return prefabIds.get(prefab);
+    }
+
+    /**
+     * @throws IllegalArgumentException if no prefab has the id
+     */
+    public String getPrefab(int id) {
+        return get(prefabs, id, "prefab");
+    }
+
+    /**
+     * @return the id of the argument key, or null if it isn't in the table
+     */
+    public Integer getKeyId(String key) {
+        return keyIds.get(key);
+    }
+
+    /**
+     * @throws IllegalArgumentException if no argument key has the id
+     */
+    public String getKey(int id) {
+        return get(keys, id, "key");
+    }
+
+    private static String get(List<String> names, int id, String kind) {
+        if (id < 0 || id >= names.size()) {
+            throw new IllegalArgumentException("Logic " + kind + " id " + id + " out of range");
+        }
+        return names.get(id);
+    }
+}
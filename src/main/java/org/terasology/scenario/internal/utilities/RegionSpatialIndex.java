@@ -0,0 +1,131 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.scenario.internal.utilities;
+
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.world.block.BlockRegion;
+import org.terasology.engine.world.block.BlockRegionc;
+import org.terasology.scenario.internal.systems.RegionEventSystem;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Grid based spatial index of the {@link BlockRegion}s of scenario region entities.
+ * <p>
+ * Every region is bucketed into each fixed size cell of the world that it overlaps, so finding the regions that contain a block position
+ * only needs to test the few regions that share the position's cell instead of every region of the scenario. Regions that would cover too
+ * many cells are kept in a separate list that is always tested.
+ * <p>
+ * Utilized by {@link RegionEventSystem}
+ */
+public class RegionSpatialIndex {
+    /**
+     * Cells are 32 blocks wide in every direction, which matches the horizontal size of a chunk
+     */
+    private static final int CELL_SIZE_BITS = 5;
+    private static final int MAX_CELLS_PER_REGION = 4096;
+    private static final long CELL_COORDINATE_MASK = (1L << 21) - 1;
+
+    private final Map<Long, List<EntityRef>> cells = new HashMap<>();
+    private final Map<EntityRef, BlockRegion> indexedRegions = new HashMap<>();
+    private final Set<EntityRef> oversizedRegions = new LinkedHashSet<>();
+
+    /**
+     * Adds a region entity to the index, or moves it if it is already indexed with a different region
+     *
+     * @param regionEntity the scenario region entity
+     * @param region the area of the world that the region entity covers
+     */
+    public void put(EntityRef regionEntity, BlockRegionc region) {
+        remove(regionEntity);
+        if (!region.isValid()) {
+            return;
+        }
+        BlockRegion indexedRegion = new BlockRegion(region);
+        indexedRegions.put(regionEntity, indexedRegion);
+
+        int minCellX = toCell(indexedRegion.minX());
+        int minCellY = toCell(indexedRegion.minY());
+        int minCellZ = toCell(indexedRegion.minZ());
+        int maxCellX = toCell(indexedRegion.maxX());
+        int maxCellY = toCell(indexedRegion.maxY());
+        int maxCellZ = toCell(indexedRegion.maxZ());
+        long cellCount = (long) (maxCellX - minCellX + 1) * (maxCellY - minCellY + 1) * (maxCellZ - minCellZ + 1);
+        if (cellCount > MAX_CELLS_PER_REGION) {
+            oversizedRegions.add(regionEntity);
+            return;
+        }
+
+        for (int x = minCellX; x <= maxCellX; x++) {
+            for (int y = minCellY; y <= maxCellY; y++) {
+                for (int z = minCellZ; z <= maxCellZ; z++) {
+                    cells.computeIfAbsent(cellKey(x, y, z), k -> new ArrayList<>()).add(regionEntity);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes a region entity from the index, does nothing if the entity is not indexed
+     */
+    public void remove(EntityRef regionEntity) {
+        BlockRegion region = indexedRegions.remove(regionEntity);
+        if (region == null || oversizedRegions.remove(regionEntity)) {
+            return;
+        }
+
+        for (int x = toCell(region.minX()); x <= toCell(region.maxX()); x++) {
+            for (int y = toCell(region.minY()); y <= toCell(region.maxY()); y++) {
+                for (int z = toCell(region.minZ()); z <= toCell(region.maxZ()); z++) {
+                    long key = cellKey(x, y, z);
+                    List<EntityRef> cell = cells.get(key);
+                    if (cell != null) {
+                        cell.remove(regionEntity);
+                        if (cell.isEmpty()) {
+                            cells.remove(key);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        cells.clear();
+        indexedRegions.clear();
+        oversizedRegions.clear();
+    }
+
+    /**
+     * Adds every indexed region entity whose region contains the block position to the output collection
+     */
+    public void collectRegionsContaining(int x, int y, int z, Collection<EntityRef> output) {
+        List<EntityRef> cell = cells.get(cellKey(toCell(x), toCell(y), toCell(z)));
+        if (cell != null) {
+            for (EntityRef regionEntity : cell) {
+                if (indexedRegions.get(regionEntity).contains(x, y, z)) {
+                    output.add(regionEntity);
+                }
+            }
+        }
+        for (EntityRef regionEntity : oversizedRegions) {
+            if (indexedRegions.get(regionEntity).contains(x, y, z)) {
+                output.add(regionEntity);
+            }
+        }
+    }
+
+    private static int toCell(int blockCoordinate) {
+        return blockCoordinate >> CELL_SIZE_BITS;
+    }
+
+    private static long cellKey(int cellX, int cellY, int cellZ) {
+        return ((cellX & CELL_COORDINATE_MASK) << 42) | ((cellY & CELL_COORDINATE_MASK) << 21) | (cellZ & CELL_COORDINATE_MASK);
+    }
+}
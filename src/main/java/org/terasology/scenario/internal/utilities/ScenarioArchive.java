@@ -0,0 +1,314 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.scenario.internal.utilities;
+
+import org.terasology.engine.world.block.BlockRegion;
+import org.terasology.nui.Color;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary file form of a whole scenario (regions, triggers and their logic entities), used to export a scenario from one world and import
+ * it into another
+ * <p>
+ * The file is made to be loaded with a single read: all prefab names, keys, names and text values are written once into a dictionary at
+ * the start and the number of regions, triggers and logic entities is written in the header, so the reader can size its lists before
+ * creating any entity. Logic entities are written as lines the same way as {@link LogicEntityCodec} does, except that constant regions refer
+ * to the index of a region in the file instead of a network id, as the ids of the exporting world mean nothing to the importing one.
+ * <p>
+ * Layout: magic int, version byte, varint region, trigger and logic entity counts, dictionary (varint count, then varint length and UTF-8
+ * bytes per entry), then records until the end of the file. A record is a tag byte followed by either a region, the name of a trigger or a
+ * logic entity (varint line count and the lines) of the trigger before it
+ */
+public final class ScenarioArchive {
+    public static final int MAGIC = 0x53434E41; //"SCNA"
+    public static final byte VERSION = 1;
+
+    public static final byte SECTION_EVENTS = 0;
+    public static final byte SECTION_CONDITIONS = 1;
+    public static final byte SECTION_ACTIONS = 2;
+
+    private static final byte TAG_REGION = 0;
+    private static final byte TAG_TRIGGER = 1;
+    private static final byte TAG_LOGIC_ENTITY = 2;
+
+    private static final byte KIND_PREFAB = 0;
+    private static final byte KIND_STRING = 1;
+    private static final byte KIND_INT = 2;
+    private static final byte KIND_REGION = 3;
+
+    private ScenarioArchive() {
+    }
+
+    /**
+     * Receives the content of an archive in the order it was written in. The lines of a logic entity are passed to the methods of {@link
+     * LogicEntityCodec.Visitor} between {@link #visitLogicEntity(byte)} and {@link #visitLogicEntityEnd()}
+     */
+    public interface Visitor extends LogicEntityCodec.Visitor {
+        void visitHeader(int regions, int triggers, int logicEntities);
+
+        void visitRegion(String name, Color color, BlockRegion region, boolean isProtected);
+
+        void visitTrigger(String name);
+
+        /**
+         * Starts a logic entity of the last visited trigger
+         *
+         * @param section one of {@link #SECTION_EVENTS}, {@link #SECTION_CONDITIONS} and {@link #SECTION_ACTIONS}
+         */
+        void visitLogicEntity(byte section);
+
+        /**
+         * A constant region argument
+         *
+         * @param region index of the region in the order the regions were visited in
+         */
+        void visitRegionValue(int depth, String key, int region);
+
+        void visitLogicEntityEnd();
+    }
+
+    /**
+     * Writes an archive, regions have to be added before the logic entities that refer to them and logic entities after the trigger they
+     * belong to. The lines of a logic entity have to be in depth first order, see {@link LogicEntityCodec.Visitor}
+     */
+    public static class Writer {
+        private final Map<String, Integer> dictionaryIndices = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+        private final ByteArrayOutputStream records = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream lines = new ByteArrayOutputStream();
+
+        private int regionCount;
+        private int triggerCount;
+        private int logicEntityCount;
+
+        private byte section = -1;
+        private int lineCount;
+
+        public void addRegion(String name, Color color, BlockRegion region, boolean isProtected) {
+            endLogicEntity();
+            records.write(TAG_REGION);
+            LogicEntityCodec.writeVarInt(records, index(name));
+            LogicEntityCodec.writeVarInt(records, color.rgba());
+            LogicEntityCodec.writeZigZag(records, region.minX());
+            LogicEntityCodec.writeZigZag(records, region.minY());
+            LogicEntityCodec.writeZigZag(records, region.minZ());
+            LogicEntityCodec.writeZigZag(records, region.maxX());
+            LogicEntityCodec.writeZigZag(records, region.maxY());
+            LogicEntityCodec.writeZigZag(records, region.maxZ());
+            records.write(isProtected ? 1 : 0);
+            regionCount++;
+        }
+
+        public void addTrigger(String name) {
+            endLogicEntity();
+            records.write(TAG_TRIGGER);
+            LogicEntityCodec.writeVarInt(records, index(name));
+            triggerCount++;
+        }
+
+        /**
+         * Starts a logic entity of the last added trigger, it ends with the next call that doesn't add a line to it
+         */
+        public void beginLogicEntity(byte section) {
+            if (triggerCount == 0) {
+                throw new IllegalStateException("Logic entities have to belong to a trigger");
+            }
+            endLogicEntity();
+            this.section = section;
+        }
+
+        public void addPrefab(int depth, String key, String prefab) {
+            writeKey(depth, key);
+            lines.write(KIND_PREFAB);
+            LogicEntityCodec.writeVarInt(lines, index(prefab));
+        }
+
+        public void addValue(int depth, String key, String value) {
+            writeKey(depth, key);
+            Integer number = LogicEntityCodec.parseCanonicalInt(value);
+            if (number != null) {
+                lines.write(KIND_INT);
+                LogicEntityCodec.writeZigZag(lines, number);
+            } else {
+                lines.write(KIND_STRING);
+                LogicEntityCodec.writeVarInt(lines, index(value));
+            }
+        }
+
+        /**
+         * @param region index of the region in the order the regions were added in
+         */
+        public void addRegionValue(int depth, String key, int region) {
+            if (region < 0 || region >= regionCount) {
+                throw new IllegalArgumentException("Region " + region + " was not added to the archive");
+            }
+            writeKey(depth, key);
+            lines.write(KIND_REGION);
+            LogicEntityCodec.writeVarInt(lines, region);
+        }
+
+        public byte[] toByteArray() {
+            endLogicEntity();
+            ByteBuffer header = ByteBuffer.allocate(5);
+            header.putInt(MAGIC).put(VERSION);
+            ByteArrayOutputStream output = new ByteArrayOutputStream(records.size() + 16 * dictionary.size() + 32);
+            output.write(header.array(), 0, header.capacity());
+            LogicEntityCodec.writeVarInt(output, regionCount);
+            LogicEntityCodec.writeVarInt(output, triggerCount);
+            LogicEntityCodec.writeVarInt(output, logicEntityCount);
+            LogicEntityCodec.writeVarInt(output, dictionary.size());
+            for (String entry : dictionary) {
+                byte[] bytes = entry.getBytes(StandardCharsets.UTF_8);
+                LogicEntityCodec.writeVarInt(output, bytes.length);
+                output.write(bytes, 0, bytes.length);
+            }
+            byte[] recordBytes = records.toByteArray();
+            output.write(recordBytes, 0, recordBytes.length);
+            return output.toByteArray();
+        }
+
+        private void writeKey(int depth, String key) {
+            if (section < 0) {
+                throw new IllegalStateException("Lines have to belong to a logic entity");
+            }
+            LogicEntityCodec.writeVarInt(lines, depth);
+            if (depth > 0) {
+                LogicEntityCodec.writeVarInt(lines, index(key));
+            }
+            lineCount++;
+        }
+
+        private void endLogicEntity() {
+            if (section < 0) {
+                return;
+            }
+            records.write(TAG_LOGIC_ENTITY);
+            records.write(section);
+            LogicEntityCodec.writeVarInt(records, lineCount);
+            byte[] lineBytes = lines.toByteArray();
+            records.write(lineBytes, 0, lineBytes.length);
+            logicEntityCount++;
+
+            lines.reset();
+            lineCount = 0;
+            section = -1;
+        }
+
+        private int index(String entry) {
+            return LogicEntityCodec.getIndex(entry, dictionary, dictionaryIndices);
+        }
+    }
+
+    /**
+     * Reads a whole archive, passing its content to the visitor
+     *
+     * @param archive the bytes of an archive created by a {@link Writer}
+     * @throws IllegalArgumentException if the bytes are not a valid archive, the visitor might already have received part of it
+     */
+    public static void read(byte[] archive, Visitor visitor) {
+        try {
+            readBuffer(ByteBuffer.wrap(archive), visitor);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Scenario archive is truncated or corrupt", e);
+        }
+    }
+
+    private static void readBuffer(ByteBuffer buffer, Visitor visitor) {
+        if (buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a scenario archive");
+        }
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported scenario archive version " + version);
+        }
+        int regionCount = LogicEntityCodec.readCount(buffer);
+        int triggerCount = LogicEntityCodec.readCount(buffer);
+        visitor.visitHeader(regionCount, triggerCount, LogicEntityCodec.readCount(buffer));
+
+        String[] dictionary = LogicEntityCodec.readDictionary(buffer);
+
+        int regions = 0;
+        int triggers = 0;
+        while (buffer.hasRemaining()) {
+            byte tag = buffer.get();
+            switch (tag) {
+                case TAG_REGION:
+                    String name = LogicEntityCodec.readEntry(buffer, dictionary);
+                    Color color = new Color(LogicEntityCodec.readVarInt(buffer));
+                    BlockRegion region = new BlockRegion(LogicEntityCodec.readZigZag(buffer), LogicEntityCodec.readZigZag(buffer),
+                            LogicEntityCodec.readZigZag(buffer), LogicEntityCodec.readZigZag(buffer), LogicEntityCodec.readZigZag(buffer),
+                            LogicEntityCodec.readZigZag(buffer));
+                    visitor.visitRegion(name, color, region, buffer.get() != 0);
+                    regions++;
+                    break;
+                case TAG_TRIGGER:
+                    visitor.visitTrigger(LogicEntityCodec.readEntry(buffer, dictionary));
+                    triggers++;
+                    break;
+                case TAG_LOGIC_ENTITY:
+                    if (triggers == 0) {
+                        throw new IllegalArgumentException("Logic entity before the first trigger");
+                    }
+                    byte section = buffer.get();
+                    if (section != SECTION_EVENTS && section != SECTION_CONDITIONS && section != SECTION_ACTIONS) {
+                        throw new IllegalArgumentException("Unknown trigger section " + section);
+                    }
+                    visitor.visitLogicEntity(section);
+                    readLines(buffer, dictionary, regions, visitor);
+                    visitor.visitLogicEntityEnd();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown scenario archive record " + tag);
+            }
+        }
+        if (regions != regionCount || triggers != triggerCount) {
+            throw new IllegalArgumentException("Scenario archive is truncated or corrupt");
+        }
+    }
+
+    private static void readLines(ByteBuffer buffer, String[] dictionary, int regions, Visitor visitor) {
+        int lineCount = LogicEntityCodec.readCount(buffer);
+        int previousDepth = -1;
+        for (int i = 0; i < lineCount; i++) {
+            int depth = LogicEntityCodec.readVarInt(buffer);
+            if (depth < 0 || depth > previousDepth + 1 || (i == 0) != (depth == 0)) {
+                throw new IllegalArgumentException("Logic entity line " + i + " is not in depth first order");
+            }
+            previousDepth = depth;
+            String key = depth > 0 ? LogicEntityCodec.readEntry(buffer, dictionary) : null;
+
+            byte kind = buffer.get();
+            if (depth == 0 && kind != KIND_PREFAB) {
+                throw new IllegalArgumentException("Logic entity doesn't start with a prefab");
+            }
+            switch (kind) {
+                case KIND_PREFAB:
+                    visitor.visitPrefab(depth, key, LogicEntityCodec.readEntry(buffer, dictionary));
+                    break;
+                case KIND_STRING:
+                    visitor.visitValue(depth, key, LogicEntityCodec.readEntry(buffer, dictionary));
+                    break;
+                case KIND_INT:
+                    visitor.visitValue(depth, key, Integer.toString(LogicEntityCodec.readZigZag(buffer)));
+                    break;
+                case KIND_REGION:
+                    int region = LogicEntityCodec.readVarInt(buffer);
+                    if (region < 0 || region >= regions) {
+                        throw new IllegalArgumentException("Logic entity refers to unknown region " + region);
+                    }
+                    visitor.visitRegionValue(depth, key, region);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown logic entity line kind " + kind);
+            }
+        }
+    }
+}